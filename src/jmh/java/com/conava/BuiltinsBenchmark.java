@@ -0,0 +1,146 @@
+package com.conava;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import javax.script.Bindings;
+import javax.script.CompiledScript;
+import javax.script.ScriptException;
+import javax.script.SimpleBindings;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares a scripted {@code foreach} aggregation with the native builtins,
+ * and the scalar builtin kernels with the Vector API kernels.
+ * <p>
+ * The {@code *Vector} benchmarks fork a JVM with
+ * {@code --add-modules jdk.incubator.vector}, which switches
+ * {@link Builtins} over to {@link VectorKernels}; all others run the scalar
+ * kernels. Run with {@code ./gradlew jmh}.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BuiltinsBenchmark {
+
+    private static final String VECTOR = "--add-modules=jdk.incubator.vector";
+
+    @Param({"1000", "100000"})
+    int size;
+
+    @Param({"int", "double"})
+    String kind;
+
+    private List<Object> xs;
+    private List<Object> ys;
+    private CompiledScript scriptedSum;
+    private CompiledScript builtinSum;
+
+    @Setup
+    public void setup() throws ScriptException {
+        Random random = new Random(42);
+        xs = new ArrayList<>(size);
+        ys = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            xs.add(kind.equals("int") ? (Object) random.nextInt(100) : (Object) random.nextDouble());
+            ys.add(kind.equals("int") ? (Object) random.nextInt(100) : (Object) random.nextDouble());
+        }
+
+        MinJScriptEngine engine = (MinJScriptEngine) new MinJScriptEngineFactory().getScriptEngine();
+        String zero = kind.equals("int") ? "0" : "0.0";
+        scriptedSum = engine.compile("var s = " + zero + "\nforeach x in xs do:\n    s = s + x\nend\n");
+        builtinSum = engine.compile("var s = sum(xs)\n");
+    }
+
+    // === Scripted vs. Builtin ===
+
+    @Benchmark
+    public Object scriptedSum() throws ScriptException {
+        return run(scriptedSum);
+    }
+
+    @Benchmark
+    public Object builtinSum() throws ScriptException {
+        return run(builtinSum);
+    }
+
+    // === Scalar vs. Vector Kernels ===
+
+    @Benchmark
+    public Object sumScalar() {
+        return Builtins.sum(xs);
+    }
+
+    @Benchmark
+    @Fork(value = 1, jvmArgsAppend = VECTOR)
+    public Object sumVector() {
+        return Builtins.sum(xs);
+    }
+
+    @Benchmark
+    public Object dotScalar() {
+        return Builtins.dot(xs, ys);
+    }
+
+    @Benchmark
+    @Fork(value = 1, jvmArgsAppend = VECTOR)
+    public Object dotVector() {
+        return Builtins.dot(xs, ys);
+    }
+
+    @Benchmark
+    public Object mulScalar() {
+        return Builtins.elementwise("mul", xs, ys);
+    }
+
+    @Benchmark
+    @Fork(value = 1, jvmArgsAppend = VECTOR)
+    public Object mulVector() {
+        return Builtins.elementwise("mul", xs, ys);
+    }
+
+    // === Chained Builtins ===
+
+    /**
+     * {@code sum(mul(scale(xs, 2), ys))}: only {@code xs} and {@code ys} are
+     * unboxed, the intermediate lists stay primitive-backed.
+     */
+    @Benchmark
+    public Object chainScalar() {
+        return chain();
+    }
+
+    @Benchmark
+    @Fork(value = 1, jvmArgsAppend = VECTOR)
+    public Object chainVector() {
+        return chain();
+    }
+
+    private Object chain() {
+        return Builtins.sum(Builtins.elementwise("mul", Builtins.scale(xs, 2), ys));
+    }
+
+    private Object run(CompiledScript script) throws ScriptException {
+        Bindings bindings = new SimpleBindings();
+        bindings.put("xs", xs);
+        script.eval(bindings);
+        return bindings.get("s");
+    }
+}
@@ -0,0 +1,121 @@
+package com.conava;
+
+import java.time.Duration;
+
+/**
+ * Execution limits for one run of a MinJ program.
+ * <p>
+ * Fuel measures work: every loop back-edge and every function entry consumes
+ * one unit, and a native builtin consumes one unit per list element it
+ * processed, as much as a scripted loop over the same list. The wall clock is
+ * only read once a certain amount of fuel has been used since the last read.
+ * That interval adapts to how fast fuel burns: it shrinks when reads are more
+ * than about {@value #CLOCK_GAP_MILLIS} ms apart and grows back up to
+ * {@value #CLOCK_INTERVAL} units when they are much closer, so a poll is
+ * normally one increment and two compares, and even slow loop bodies cannot
+ * overshoot the timeout by more than a few clock gaps. Running out of either
+ * budget throws {@link BudgetExceededException}, which carries a
+ * partial-execution report.
+ * </p>
+ * <p>
+ * A budget is stateful and starts its clock on construction; create a new one
+ * for every run.
+ * </p>
+ */
+public final class Budget {
+
+    /**
+     * Largest number of fuel units between two clock reads.
+     */
+    static final int CLOCK_INTERVAL = 1024;
+
+    /**
+     * Intended wall-clock time between two clock reads.
+     */
+    static final long CLOCK_GAP_MILLIS = 1;
+
+    private final long fuelLimit;
+    private final long timeoutNanos;
+    private final long clockGapNanos;
+    private final long start;
+    private final long deadline;
+    private long used;
+    private long nextClockRead;
+    private long lastClockRead;
+    private long usedAtLastRead;
+
+    /**
+     * @param fuel    maximum fuel (loop iterations, calls and builtin elements), or {@code <= 0} for no limit
+     * @param timeout maximum wall-clock time, or null for no limit
+     */
+    public Budget(long fuel, Duration timeout) {
+        this.fuelLimit = fuel > 0 ? fuel : Long.MAX_VALUE;
+        this.timeoutNanos = timeout != null ? timeout.toNanos() : 0;
+        // short timeouts need proportionally tighter checks
+        this.clockGapNanos = Math.max(1, Math.min(CLOCK_GAP_MILLIS * 1_000_000, timeoutNanos / 8));
+        this.start = System.nanoTime();
+        this.deadline = start + timeoutNanos;
+        this.lastClockRead = start;
+        this.nextClockRead = timeoutNanos > 0 ? 1 : Long.MAX_VALUE;
+    }
+
+    /**
+     * Safepoint poll; consumes one unit of fuel and checks the clock when due.
+     *
+     * @param line source line of the loop or function being entered
+     * @throws BudgetExceededException if fuel or time ran out
+     */
+    void poll(int line) {
+        if (++used > fuelLimit) {
+            throw exceeded(BudgetExceededException.Reason.FUEL, line);
+        }
+        if (used >= nextClockRead) {
+            readClock(line);
+        }
+    }
+
+    /**
+     * Consumes {@code units} of fuel at once, e.g. for a builtin that processed that many elements.
+     *
+     * @param units fuel to consume, {@code >= 1}
+     * @param line  source line of the call
+     * @throws BudgetExceededException if fuel or time ran out
+     */
+    void charge(long units, int line) {
+        used += units;
+        if (used > fuelLimit) {
+            throw exceeded(BudgetExceededException.Reason.FUEL, line);
+        }
+        if (used >= nextClockRead) {
+            readClock(line);
+        }
+    }
+
+    /**
+     * Fuel consumed so far.
+     */
+    public long used() {
+        return used;
+    }
+
+    /**
+     * Checks the deadline and rescales the interval so that the next read
+     * happens roughly {@link #clockGapNanos} from now.
+     */
+    private void readClock(int line) {
+        long now = System.nanoTime();
+        if (now - deadline > 0) {
+            throw exceeded(BudgetExceededException.Reason.TIMEOUT, line);
+        }
+        long gap = Math.max(1, now - lastClockRead);
+        double unitsPerGap = (double) (used - usedAtLastRead) * clockGapNanos / gap;
+        long interval = Math.max(1, (long) Math.min(CLOCK_INTERVAL, unitsPerGap));
+        lastClockRead = now;
+        usedAtLastRead = used;
+        nextClockRead = used + interval;
+    }
+
+    private BudgetExceededException exceeded(BudgetExceededException.Reason reason, int line) {
+        return new BudgetExceededException(reason, used, fuelLimit, System.nanoTime() - start, line);
+    }
+}
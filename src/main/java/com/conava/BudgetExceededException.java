@@ -0,0 +1,54 @@
+package com.conava;
+
+/**
+ * Thrown when a program runs out of fuel or time (see {@link Budget}).
+ * <p>
+ * Deliberately not an {@link IllegalStateException}, so interpreter code that
+ * recovers from lookup failures cannot swallow the abort. The message is a
+ * short partial-execution report.
+ * </p>
+ */
+public class BudgetExceededException extends RuntimeException {
+
+    /**
+     * Which limit was hit.
+     */
+    public enum Reason { FUEL, TIMEOUT }
+
+    private final Reason reason;
+    private final long fuelUsed;
+    private final long elapsedNanos;
+    private final int line;
+
+    BudgetExceededException(Reason reason, long fuelUsed, long fuelLimit, long elapsedNanos, int line) {
+        super(String.format("%s budget exhausted at line %d after %d fuel units (limit %s) and %.3f ms",
+                reason == Reason.FUEL ? "Fuel" : "Time",
+                line,
+                fuelUsed,
+                fuelLimit == Long.MAX_VALUE ? "none" : String.valueOf(fuelLimit),
+                elapsedNanos / 1_000_000.0), null, false, false);
+        this.reason = reason;
+        this.fuelUsed = fuelUsed;
+        this.elapsedNanos = elapsedNanos;
+        this.line = line;
+    }
+
+    public Reason reason() {
+        return reason;
+    }
+
+    public long fuelUsed() {
+        return fuelUsed;
+    }
+
+    public long elapsedNanos() {
+        return elapsedNanos;
+    }
+
+    /**
+     * Source line of the loop or function at which execution stopped.
+     */
+    public int line() {
+        return line;
+    }
+}
@@ -0,0 +1,377 @@
+package com.conava;
+
+import java.util.List;
+
+/**
+ * Native numeric builtins over MinJ lists.
+ * <p>
+ * Each builtin unboxes its list arguments once into a primitive {@code int[]}
+ * or {@code double[]} and runs a kernel over it. List results come back as
+ * {@link IntList} or {@link DoubleList}, which keep that array; when one is
+ * passed back in, the kernel reads its array directly, so chained calls like
+ * {@code sum(mul(xs, ys))} unbox only the original arguments.
+ * When the JVM was started with {@code --add-modules jdk.incubator.vector}
+ * the kernels in {@link VectorKernels} use explicit SIMD; otherwise the scalar
+ * kernels below run, written so that HotSpot's C2 can still auto-vectorize
+ * most of them.
+ * </p>
+ * <p>
+ * Numeric promotion follows {@link EvalVisitor}: if every element is an
+ * {@code Integer} the result is integral, otherwise everything is widened
+ * to {@code double}. Integer arithmetic wraps exactly like the interpreter's,
+ * but floating-point {@code sum} and {@code dot} add in a different order
+ * than a scripted {@code foreach} loop (see {@link #sumDoubles}), so their
+ * last bits may differ from it.
+ * </p>
+ */
+final class Builtins {
+
+    /**
+     * True if the {@code jdk.incubator.vector} module is in the boot layer.
+     * {@link VectorKernels} is only touched when this is set, so without the
+     * module that class is never loaded.
+     */
+    static final boolean VECTOR = ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent();
+
+    private Builtins() {
+    }
+
+    /**
+     * Returns true if {@code name} is a native builtin handled by {@link #call}.
+     */
+    static boolean isBuiltin(String name) {
+        return switch (name) {
+            case "sum", "dot", "scale", "add", "sub", "mul", "minmax" -> true;
+            default -> false;
+        };
+    }
+
+    /**
+     * Invokes the builtin {@code name} with already evaluated arguments.
+     *
+     * @param name builtin name (see {@link #isBuiltin})
+     * @param args evaluated argument values
+     * @return the boxed result
+     */
+    static Object call(String name, List<Object> args) {
+        return switch (name) {
+            case "sum" -> {
+                arity(name, args, 1);
+                yield sum(list(name, args.get(0)));
+            }
+            case "dot" -> {
+                arity(name, args, 2);
+                yield dot(list(name, args.get(0)), list(name, args.get(1)));
+            }
+            case "scale" -> {
+                arity(name, args, 2);
+                yield scale(list(name, args.get(0)), number(name, args.get(1)));
+            }
+            case "add", "sub", "mul" -> {
+                arity(name, args, 2);
+                yield elementwise(name, list(name, args.get(0)), list(name, args.get(1)));
+            }
+            case "minmax" -> {
+                arity(name, args, 1);
+                yield minmax(list(name, args.get(0)));
+            }
+            default -> throw new IllegalStateException("Unknown function: " + name);
+        };
+    }
+
+    /**
+     * Fuel a call consumes: one unit per list element it processes, at least one.
+     */
+    static long cost(List<Object> args) {
+        long elements = 0;
+        for (Object a : args) {
+            if (a instanceof List<?> l) elements += l.size();
+        }
+        return Math.max(1, elements);
+    }
+
+    // === Builtins ===
+
+    /**
+     * Sum of all elements; {@code 0} for an empty list.
+     */
+    static Object sum(List<?> xs) {
+        if (allInts(xs)) {
+            int[] a = ints(xs);
+            return VECTOR ? VectorKernels.sum(a) : sumInts(a);
+        }
+        double[] a = doubles(xs);
+        return VECTOR ? VectorKernels.sum(a) : sumDoubles(a);
+    }
+
+    /**
+     * Dot product of two lists of equal length.
+     */
+    static Object dot(List<?> xs, List<?> ys) {
+        sameLength("dot", xs, ys);
+        if (allInts(xs) && allInts(ys)) {
+            int[] a = ints(xs);
+            int[] b = ints(ys);
+            return VECTOR ? VectorKernels.dot(a, b) : dotInts(a, b);
+        }
+        double[] a = doubles(xs);
+        double[] b = doubles(ys);
+        return VECTOR ? VectorKernels.dot(a, b) : dotDoubles(a, b);
+    }
+
+    /**
+     * Multiplies every element by {@code k}, returning a new list.
+     */
+    static List<Object> scale(List<?> xs, Number k) {
+        if (allInts(xs) && k instanceof Integer ki) {
+            int[] a = copyInts(xs);
+            if (VECTOR) VectorKernels.scale(a, ki);
+            else scaleInts(a, ki);
+            return new IntList(a);
+        }
+        double[] a = copyDoubles(xs);
+        if (VECTOR) VectorKernels.scale(a, k.doubleValue());
+        else scaleDoubles(a, k.doubleValue());
+        return new DoubleList(a);
+    }
+
+    /**
+     * Element-wise {@code add}, {@code sub} or {@code mul} of two lists of equal length.
+     */
+    static List<Object> elementwise(String op, List<?> xs, List<?> ys) {
+        sameLength(op, xs, ys);
+        if (allInts(xs) && allInts(ys)) {
+            int[] a = copyInts(xs);
+            int[] b = ints(ys);
+            if (VECTOR) VectorKernels.elementwise(op, a, b);
+            else elementwiseInts(op, a, b);
+            return new IntList(a);
+        }
+        double[] a = copyDoubles(xs);
+        double[] b = doubles(ys);
+        if (VECTOR) VectorKernels.elementwise(op, a, b);
+        else elementwiseDoubles(op, a, b);
+        return new DoubleList(a);
+    }
+
+    /**
+     * Returns {@code [min, max]} so it can be destructured: {@code var lo, hi = minmax(xs)}.
+     */
+    static List<Object> minmax(List<?> xs) {
+        if (xs.isEmpty()) throw new IllegalArgumentException("minmax of empty list");
+        if (allInts(xs)) {
+            int[] a = ints(xs);
+            return new IntList(VECTOR ? VectorKernels.minmax(a) : minmaxInts(a));
+        }
+        double[] a = doubles(xs);
+        return new DoubleList(VECTOR ? VectorKernels.minmax(a) : minmaxDoubles(a));
+    }
+
+    // === Scalar Kernels ===
+
+    private static int sumInts(int[] a) {
+        int s = 0;
+        for (int i = 0; i < a.length; i++) {
+            s += a[i];
+        }
+        return s;
+    }
+
+    /**
+     * Floating-point sum with four independent accumulators. C2 does not
+     * vectorize a single strict-order double reduction, so the partial sums
+     * break the dependency chain the same way a SIMD lane reduction would.
+     * The price is reassociation: the result can differ in the last bits
+     * from adding the elements left to right.
+     */
+    private static double sumDoubles(double[] a) {
+        double s0 = 0, s1 = 0, s2 = 0, s3 = 0;
+        int i = 0;
+        int bound = a.length & ~3;
+        for (; i < bound; i += 4) {
+            s0 += a[i];
+            s1 += a[i + 1];
+            s2 += a[i + 2];
+            s3 += a[i + 3];
+        }
+        for (; i < a.length; i++) {
+            s0 += a[i];
+        }
+        return (s0 + s1) + (s2 + s3);
+    }
+
+    private static int dotInts(int[] a, int[] b) {
+        int s = 0;
+        for (int i = 0; i < a.length; i++) {
+            s += a[i] * b[i];
+        }
+        return s;
+    }
+
+    /**
+     * Dot product accumulated like {@link #sumDoubles}, without materializing the products.
+     */
+    private static double dotDoubles(double[] a, double[] b) {
+        double s0 = 0, s1 = 0, s2 = 0, s3 = 0;
+        int i = 0;
+        int bound = a.length & ~3;
+        for (; i < bound; i += 4) {
+            s0 += a[i] * b[i];
+            s1 += a[i + 1] * b[i + 1];
+            s2 += a[i + 2] * b[i + 2];
+            s3 += a[i + 3] * b[i + 3];
+        }
+        for (; i < a.length; i++) {
+            s0 += a[i] * b[i];
+        }
+        return (s0 + s1) + (s2 + s3);
+    }
+
+    private static void scaleInts(int[] a, int k) {
+        for (int i = 0; i < a.length; i++) {
+            a[i] *= k;
+        }
+    }
+
+    private static void scaleDoubles(double[] a, double k) {
+        for (int i = 0; i < a.length; i++) {
+            a[i] *= k;
+        }
+    }
+
+    private static void elementwiseInts(String op, int[] a, int[] b) {
+        switch (op) {
+            case "add" -> {
+                for (int i = 0; i < a.length; i++) a[i] += b[i];
+            }
+            case "sub" -> {
+                for (int i = 0; i < a.length; i++) a[i] -= b[i];
+            }
+            default -> {
+                for (int i = 0; i < a.length; i++) a[i] *= b[i];
+            }
+        }
+    }
+
+    private static void elementwiseDoubles(String op, double[] a, double[] b) {
+        switch (op) {
+            case "add" -> {
+                for (int i = 0; i < a.length; i++) a[i] += b[i];
+            }
+            case "sub" -> {
+                for (int i = 0; i < a.length; i++) a[i] -= b[i];
+            }
+            default -> {
+                for (int i = 0; i < a.length; i++) a[i] *= b[i];
+            }
+        }
+    }
+
+    private static int[] minmaxInts(int[] a) {
+        int lo = a[0];
+        int hi = a[0];
+        for (int i = 1; i < a.length; i++) {
+            lo = Math.min(lo, a[i]);
+            hi = Math.max(hi, a[i]);
+        }
+        return new int[]{lo, hi};
+    }
+
+    private static double[] minmaxDoubles(double[] a) {
+        double lo = a[0];
+        double hi = a[0];
+        for (int i = 1; i < a.length; i++) {
+            lo = Math.min(lo, a[i]);
+            hi = Math.max(hi, a[i]);
+        }
+        return new double[]{lo, hi};
+    }
+
+    // === Conversions ===
+
+    private static boolean allInts(List<?> xs) {
+        if (xs instanceof IntList) return true;
+        if (xs instanceof DoubleList) return xs.isEmpty();
+        for (Object o : xs) {
+            if (!(o instanceof Integer)) return false;
+        }
+        return true;
+    }
+
+    /**
+     * The elements of an all-{@code Integer} list as an {@code int[]}: an
+     * {@link IntList}'s own array, otherwise a fresh copy. Read-only.
+     */
+    private static int[] ints(List<?> xs) {
+        if (xs instanceof IntList l) return l.array();
+        int[] a = new int[xs.size()];
+        for (int i = 0; i < a.length; i++) {
+            a[i] = (Integer) xs.get(i);
+        }
+        return a;
+    }
+
+    /**
+     * The elements as a {@code double[]}: a {@link DoubleList}'s own array,
+     * otherwise a fresh copy. Read-only.
+     */
+    private static double[] doubles(List<?> xs) {
+        if (xs instanceof DoubleList l) return l.array();
+        double[] a = new double[xs.size()];
+        if (xs instanceof IntList l) {
+            int[] src = l.array();
+            for (int i = 0; i < a.length; i++) {
+                a[i] = src[i];
+            }
+            return a;
+        }
+        for (int i = 0; i < a.length; i++) {
+            Object o = xs.get(i);
+            if (!(o instanceof Number n)) {
+                throw new IllegalArgumentException("Not a number: " + o);
+            }
+            a[i] = n.doubleValue();
+        }
+        return a;
+    }
+
+    /**
+     * Like {@link #ints}, but always a new array the caller may overwrite.
+     */
+    private static int[] copyInts(List<?> xs) {
+        return xs instanceof IntList l ? l.array().clone() : ints(xs);
+    }
+
+    /**
+     * Like {@link #doubles}, but always a new array the caller may overwrite.
+     */
+    private static double[] copyDoubles(List<?> xs) {
+        return xs instanceof DoubleList l ? l.array().clone() : doubles(xs);
+    }
+
+    private static void arity(String name, List<Object> args, int n) {
+        if (args.size() != n) {
+            throw new IllegalArgumentException(name + " expects " + n + " argument(s), got " + args.size());
+        }
+    }
+
+    private static List<?> list(String name, Object v) {
+        if (!(v instanceof List<?> l)) {
+            throw new IllegalArgumentException(name + " expects a list, got: " + v);
+        }
+        return l;
+    }
+
+    private static Number number(String name, Object v) {
+        if (!(v instanceof Number n)) {
+            throw new IllegalArgumentException(name + " expects a number, got: " + v);
+        }
+        return n;
+    }
+
+    private static void sameLength(String name, List<?> xs, List<?> ys) {
+        if (xs.size() != ys.size()) {
+            throw new IllegalArgumentException(name + " length mismatch: " + xs.size() + " vs " + ys.size());
+        }
+    }
+}
@@ -0,0 +1,333 @@
+package com.conava;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * A MinJ program compiled to register-based bytecode.
+ * <p>
+ * Each function is a flat {@code int[]}: an opcode followed by its operands.
+ * Register operands are frame-relative; jump targets are absolute code
+ * indices; {@code k} operands index the shared constant pool. Function 0 is
+ * the top-level script; class methods are functions whose register 0 holds
+ * {@code this}. The same structure is the on-disk cache format (see
+ * {@link #save} and {@link #load}).
+ * </p>
+ */
+final class Bytecode {
+
+    // === Opcodes (operands in comment order) ===
+
+    static final int MOVE = 0;      // a b        R[a] = R[b]
+    static final int LOADK = 1;     // a k        R[a] = K[k]
+    static final int LOADI = 2;     // a imm      R[a] = imm (int)
+    static final int ADD = 3;       // a b c      R[a] = R[b] + R[c] (numeric or string concat)
+    static final int SUB = 4;       // a b c
+    static final int MUL = 5;       // a b c
+    static final int DIV = 6;       // a b c
+    static final int MOD = 7;       // a b c
+    static final int LT = 8;        // a b c      R[a] = R[b] < R[c]
+    static final int LE = 9;        // a b c
+    static final int GT = 10;       // a b c
+    static final int GE = 11;       // a b c
+    static final int EQ = 12;       // a b c      R[a] = R[b].equals(R[c])
+    static final int NE = 13;       // a b c
+    static final int AND = 14;      // a b c      both sides evaluated, like EvalVisitor
+    static final int OR = 15;       // a b c
+    static final int XOR = 16;      // a b c
+    static final int NOT = 17;      // a b        R[a] = !R[b]
+    static final int NEG = 18;      // a b        R[a] = -R[b]
+    static final int INC = 19;      // a          R[a] = R[a] + 1
+    static final int JMP = 20;      // t
+    static final int JMPF = 21;     // a t        goto t unless R[a] is true (if)
+    static final int JMPNOT = 22;   // a t        goto t if R[a] is false; non-booleans fail (while, for)
+    static final int LOOP = 23;     // line       loop back-edge safepoint
+    static final int CHECK = 24;    // a b k      fail "Type mismatch for K[k]" unless R[b] fits R[a]'s type
+    static final int FAIL = 25;     // k          throw IllegalStateException(K[k])
+    static final int NEWLIST = 26;  // a b n      R[a] = [R[b], ..., R[b+n-1]]
+    static final int UNPACK = 27;   // a n b      R[a..a+n-1] = elements of list R[b]
+    static final int ITERPREP = 28; // a v        fail unless R[a] is a list; R[v] = null (binds the loop variable)
+    static final int ITERNEXT = 29; // v l i t    goto t if R[i] >= size(R[l]), else R[v] = R[l][R[i]++]
+    static final int CALL = 30;     // a k b n line  R[a] = function bound to K[k], else builtin K[k], (R[b..b+n-1])
+    static final int CALLB = 31;    // a k b n line  R[a] = builtin K[k](R[b..b+n-1])
+    static final int RET = 32;      // a          return R[a] from a return statement
+    static final int RETNIL = 33;   //            return null at the end of a body
+    static final int PRINT = 34;    // a
+    static final int GETG = 35;     // a k        R[a] = globals[K[k]]
+    static final int SETG = 36;     // k a        globals[K[k]] = R[a]
+    static final int DEFINED = 37;  // a k        fail "Undefined: K[k]" unless R[a] has been assigned
+    static final int CLASS = 38;    // c          declare classes[c], replacing any class of the same name
+    static final int INITF = 39;    // c f a k m  field f of classes[c] starts as R[a]; type K[k] (-1: R[a]'s), m = F_* flags
+    static final int NEWOBJ = 40;   // a k        R[a] = new instance of the class named K[k]
+    static final int GETF = 41;     // a o f      R[a] = field f of object R[o]
+    static final int SETF = 42;     // o f b      field f of object R[o] = R[b], checked like a typed variable
+    static final int CALLM = 43;    // a k b n    R[a] = method K[k] of object R[b] called with R[b+1..b+n]
+    static final int FUNC = 44;     // k f        bind the name K[k] to functions[f] for later CALLs
+
+    // === Field Flags (INITF) ===
+
+    static final int F_DYNAMIC = 1;
+    static final int F_MUTABLE = 2;
+
+    // === Cache Format ===
+
+    private static final int MAGIC = 0x4D4A4243; // "MJBC"
+    private static final int VERSION = 6;
+
+    private static final int K_INT = 1;
+    private static final int K_DOUBLE = 2;
+    private static final int K_FLOAT = 3;
+    private static final int K_BOOL = 4;
+    private static final int K_CHAR = 5;
+    private static final int K_STRING = 6;
+
+    /**
+     * Constant pool: {@code Integer}, {@code Double}, {@code Float},
+     * {@code Boolean}, {@code Character} or {@code String} values.
+     */
+    final Object[] constants;
+
+    /**
+     * Compiled functions; index 0 is the top-level script.
+     */
+    final Function[] functions;
+
+    /**
+     * Class declarations, in source order; {@code CLASS} and {@code INITF} index them.
+     */
+    final ClassInfo[] classes;
+
+    Bytecode(Object[] constants, Function[] functions, ClassInfo[] classes) {
+        this.constants = constants;
+        this.functions = functions;
+        this.classes = classes;
+    }
+
+    // === Serialization ===
+
+    /**
+     * Writes the program to {@code file}, tagged with the checksum of the source it came from.
+     * <p>
+     * The data goes to a temporary file in the same directory that is then
+     * atomically moved into place, so a concurrent {@link #load} never sees a
+     * half-written cache. A CRC32 of the payload is appended for {@code load}
+     * to verify.
+     * </p>
+     */
+    void save(Path file, long sourceHash) throws IOException {
+        Path tmp = file.resolveSibling(file.getFileName() + "." + ProcessHandle.current().pid() + ".tmp");
+        try {
+            CRC32 crc = new CRC32();
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeLong(sourceHash);
+
+                DataOutputStream body = new DataOutputStream(new CheckedOutputStream(out, crc));
+                body.writeInt(constants.length);
+                for (Object k : constants) {
+                    writeConstant(body, k);
+                }
+
+                body.writeInt(functions.length);
+                for (Function f : functions) {
+                    writeString(body, f.name);
+                    body.writeInt(f.arity);
+                    body.writeInt(f.registers);
+                    body.writeInt(f.line);
+                    body.writeInt(f.code.length);
+                    for (int word : f.code) {
+                        body.writeInt(word);
+                    }
+                }
+
+                body.writeInt(classes.length);
+                for (ClassInfo c : classes) {
+                    writeString(body, c.name);
+                    body.writeInt(c.fields.length);
+                    for (String field : c.fields) {
+                        writeString(body, field);
+                    }
+                    body.writeInt(c.methods.length);
+                    for (int m = 0; m < c.methods.length; m++) {
+                        writeString(body, c.methods[m]);
+                        body.writeInt(c.functions[m]);
+                    }
+                }
+                out.writeLong(crc.getValue());
+            }
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    /**
+     * Reads a cached program, or returns null if {@code file} cannot be used:
+     * it is missing, unreadable, truncated or corrupt, was written by another
+     * format version or does not match {@code sourceHash}. The cache is only
+     * an optimization, so callers simply recompile in that case.
+     */
+    static Bytecode load(Path file, long sourceHash) {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            // every element takes at least one byte, so no count can exceed the file size
+            long limit = Files.size(file);
+            if (in.readInt() != MAGIC || in.readInt() != VERSION || in.readLong() != sourceHash) {
+                return null;
+            }
+
+            CheckedInputStream checked = new CheckedInputStream(in, new CRC32());
+            DataInputStream body = new DataInputStream(checked);
+            Object[] constants = new Object[count(body.readInt(), 1, limit)];
+            for (int i = 0; i < constants.length; i++) {
+                constants[i] = readConstant(body, limit);
+            }
+
+            Function[] functions = new Function[count(body.readInt(), 1, limit)];
+            for (int i = 0; i < functions.length; i++) {
+                String name = readString(body, limit);
+                int arity = body.readInt();
+                int registers = body.readInt();
+                int line = body.readInt();
+                int[] code = new int[count(body.readInt(), Integer.BYTES, limit)];
+                for (int pc = 0; pc < code.length; pc++) {
+                    code[pc] = body.readInt();
+                }
+                functions[i] = new Function(name, arity, registers, line, code);
+            }
+
+            ClassInfo[] classes = new ClassInfo[count(body.readInt(), 1, limit)];
+            for (int i = 0; i < classes.length; i++) {
+                String name = readString(body, limit);
+                String[] fields = new String[count(body.readInt(), Integer.BYTES, limit)];
+                for (int f = 0; f < fields.length; f++) {
+                    fields[f] = readString(body, limit);
+                }
+                String[] methods = new String[count(body.readInt(), 2 * Integer.BYTES, limit)];
+                int[] methodFunctions = new int[methods.length];
+                for (int m = 0; m < methods.length; m++) {
+                    methods[m] = readString(body, limit);
+                    methodFunctions[m] = body.readInt();
+                    if (methodFunctions[m] <= 0 || methodFunctions[m] >= functions.length) {
+                        return null;
+                    }
+                }
+                classes[i] = new ClassInfo(name, fields, methods, methodFunctions);
+            }
+            if (checked.getChecksum().getValue() != in.readLong() || functions.length == 0) {
+                return null;
+            }
+            return new Bytecode(constants, functions, classes);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Validates a length word read from a cache file of {@code limit} bytes.
+     */
+    private static int count(int n, int bytesPerElement, long limit) throws IOException {
+        if (n < 0 || (long) n * bytesPerElement > limit) {
+            throw new IOException("Corrupt bytecode: implausible length " + n);
+        }
+        return n;
+    }
+
+    private static void writeConstant(DataOutputStream out, Object k) throws IOException {
+        if (k instanceof Integer i) {
+            out.writeByte(K_INT);
+            out.writeInt(i);
+        } else if (k instanceof Double d) {
+            out.writeByte(K_DOUBLE);
+            out.writeDouble(d);
+        } else if (k instanceof Float f) {
+            out.writeByte(K_FLOAT);
+            out.writeFloat(f);
+        } else if (k instanceof Boolean b) {
+            out.writeByte(K_BOOL);
+            out.writeBoolean(b);
+        } else if (k instanceof Character c) {
+            out.writeByte(K_CHAR);
+            out.writeChar(c);
+        } else {
+            out.writeByte(K_STRING);
+            writeString(out, (String) k);
+        }
+    }
+
+    private static Object readConstant(DataInputStream in, long limit) throws IOException {
+        int tag = in.readByte();
+        return switch (tag) {
+            case K_INT -> in.readInt();
+            case K_DOUBLE -> in.readDouble();
+            case K_FLOAT -> in.readFloat();
+            case K_BOOL -> in.readBoolean();
+            case K_CHAR -> in.readChar();
+            case K_STRING -> readString(in, limit);
+            default -> throw new IOException("Corrupt bytecode: constant tag " + tag);
+        };
+    }
+
+    /**
+     * Strings are length-prefixed UTF-8; unlike {@code writeUTF} there is no 64 KiB limit.
+     */
+    private static void writeString(DataOutputStream out, String s) throws IOException {
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in, long limit) throws IOException {
+        byte[] bytes = new byte[count(in.readInt(), 1, limit)];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    // === Nested Types ===
+
+    /**
+     * One compiled function: parameters arrive in registers {@code 0..arity-1}.
+     */
+    static final class Function {
+        final String name;
+        final int arity;
+        final int registers;
+        final int line;
+        final int[] code;
+
+        Function(String name, int arity, int registers, int line, int[] code) {
+            this.name = name;
+            this.arity = arity;
+            this.registers = registers;
+            this.line = line;
+            this.code = code;
+        }
+    }
+
+    /**
+     * One class declaration: its field slots and the functions implementing its methods.
+     */
+    static final class ClassInfo {
+        final String name;
+        final String[] fields;
+        final String[] methods;
+        final int[] functions;
+
+        ClassInfo(String name, String[] fields, String[] methods, int[] functions) {
+            this.name = name;
+            this.fields = fields;
+            this.methods = methods;
+            this.functions = functions;
+        }
+    }
+}
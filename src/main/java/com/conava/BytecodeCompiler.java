@@ -0,0 +1,731 @@
+package com.conava;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.antlr.v4.runtime.ParserRuleContext;
+import org.antlr.v4.runtime.tree.ParseTree;
+import org.antlr.v4.runtime.tree.TerminalNode;
+import com.conava.MinJBaseVisitor;
+import com.conava.MinJParser;
+
+/**
+ * Compiles a MinJ parse tree into {@link Bytecode} for {@link BytecodeVM}.
+ * <p>
+ * Expression visitors return the register holding their result: a variable
+ * reference simply returns the variable's register, everything else is
+ * computed into a temporary above the locals. Temporaries are released after
+ * every statement, so a function needs {@code locals + deepest expression}
+ * registers. Names that are not local to a function fall back to the global
+ * table at run time, like {@link EvalVisitor}'s {@code globals}. Global
+ * functions likewise exist only once their declaration has run: {@code FUNC}
+ * binds the name, and {@code CALL} looks it up when it executes, falling back
+ * to the builtins.
+ * </p>
+ * <p>
+ * Every local gets its register up front, but like in EvalVisitor a name only
+ * exists once its declaration has run. The compiler tracks which names are
+ * definitely declared on every path to the current statement; a read or
+ * assignment of any other local is preceded by a {@code DEFINED} check, so
+ * straight-line code pays nothing for it.
+ * </p>
+ * <p>
+ * A class declaration runs inline in the top-level code: {@code CLASS}
+ * declares it and {@code INITF} evaluates its field initializers, so objects
+ * copy the field values current at {@code new} time as in EvalVisitor. Each
+ * method becomes a function with {@code this} in register 0; inside it, names
+ * that are neither locals nor parameters resolve to the class's fields
+ * before the globals.
+ * </p>
+ */
+final class BytecodeCompiler extends MinJBaseVisitor<Integer> {
+
+    // === Program State ===
+
+    private final List<Object> constants = new ArrayList<>();
+    private final Map<Object, Integer> constantIndex = new HashMap<>();
+    private final Map<MinJParser.MethodDeclContext, Integer> functionIndex = new HashMap<>();
+    private final Set<String> functionNames = new HashSet<>();
+    private final List<Bytecode.ClassInfo> classes = new ArrayList<>();
+
+    /**
+     * Class methods found while compiling the top-level code, compiled after it.
+     */
+    private final List<Method> methods = new ArrayList<>();
+
+    // === Function State ===
+
+    private int[] code;
+    private int size;
+    private Map<String, Local> locals;
+    private Set<String> defined;
+    private Map<String, Integer> fields;
+
+    /**
+     * Registers taken by parameters and locals; temporaries start above them.
+     */
+    private int frame;
+    private int top;
+    private int maxTop;
+
+    /**
+     * Compiles the whole program; function 0 is the top-level code.
+     */
+    Bytecode compile(MinJParser.ProgramContext program) {
+        List<MinJParser.MethodDeclContext> decls = new ArrayList<>();
+        List<ParseTree> statements = new ArrayList<>();
+        for (MinJParser.TopLevelDeclContext tld : program.topLevelDecl()) {
+            // declarations run in place, like statements
+            if (tld.methodDecl() != null) {
+                decls.add(tld.methodDecl());
+                functionIndex.put(tld.methodDecl(), decls.size());
+                functionNames.add(tld.methodDecl().ID().getText());
+                statements.add(tld.methodDecl());
+            } else {
+                statements.add(tld.classDecl() != null ? tld.classDecl() : tld.statement());
+            }
+        }
+
+        List<Bytecode.Function> functions = new ArrayList<>();
+        functions.add(compileFunction("<script>", List.of(), statements, 1, null));
+        for (MinJParser.MethodDeclContext decl : decls) {
+            functions.add(compileFunction(decl.ID().getText(), params(decl), List.of(decl.block()),
+                    decl.getStart().getLine(), null));
+        }
+        for (Method m : methods) {
+            functions.add(compileFunction(m.name, params(m.decl), List.of(m.decl.block()),
+                    m.decl.getStart().getLine(), m.fields));
+        }
+        return new Bytecode(constants.toArray(), functions.toArray(new Bytecode.Function[0]),
+                classes.toArray(new Bytecode.ClassInfo[0]));
+    }
+
+    /**
+     * Compiles one function; {@code fields} is non-null for a class method,
+     * which takes {@code this} as a hidden first parameter.
+     */
+    private Bytecode.Function compileFunction(String name, List<String> params, List<ParseTree> body, int line,
+                                              Map<String, Integer> fields) {
+        code = new int[64];
+        size = 0;
+        locals = new LinkedHashMap<>();
+        defined = new HashSet<>(params);
+        this.fields = fields;
+        frame = 0;
+        if (fields != null) {
+            // bound like a val, as in EvalVisitor
+            locals.put("this", new Local(frame++, false, false));
+            defined.add("this");
+        }
+        for (String p : params) {
+            // parameters are typed by their first value, like EvalVisitor's bindings;
+            // a repeated name binds the later argument
+            locals.put(p, new Local(frame++, false, true));
+        }
+        int arity = frame;
+        for (ParseTree t : body) {
+            declareLocals(t);
+        }
+        top = frame;
+        maxTop = top;
+
+        for (ParseTree t : body) {
+            visit(t);
+            top = frame;
+        }
+        emit(Bytecode.RETNIL);
+        return new Bytecode.Function(name, arity, maxTop, line, Arrays.copyOf(code, size));
+    }
+
+    private static List<String> params(MinJParser.MethodDeclContext decl) {
+        return decl.paramList() == null
+                ? List.of()
+                : decl.paramList().ID().stream().map(TerminalNode::getText).toList();
+    }
+
+    /**
+     * Assigns a register to every name the function declares, anywhere in its body.
+     * Field declarations and methods of a class body are not locals.
+     */
+    private void declareLocals(ParseTree t) {
+        if (t instanceof MinJParser.FieldDeclContext || t instanceof MinJParser.MethodDeclContext) {
+            return;
+        } else if (t instanceof MinJParser.VarDeclContext v) {
+            v.idList().ID().forEach(id -> declare(id.getText()));
+        } else if (t instanceof MinJParser.ForStmtContext f && f.varDecl() == null) {
+            f.assign(0).idList().ID().forEach(id -> declare(id.getText()));
+        } else if (t instanceof MinJParser.ForeachStmtContext f) {
+            declare(f.ID().getText());
+        }
+        for (int i = 0; i < t.getChildCount(); i++) {
+            declareLocals(t.getChild(i));
+        }
+    }
+
+    private void declare(String name) {
+        if (!locals.containsKey(name)) {
+            locals.put(name, new Local(frame++, true, true));
+        }
+    }
+
+    // === Statement Visitors ===
+
+    @Override
+    public Integer visitVarDecl(MinJParser.VarDeclContext ctx) {
+        boolean dynamic = ctx.VAR() != null;
+        boolean mutable = ctx.VAL() == null;
+        int value;
+        if (ctx.ASSIGN() != null) {
+            value = visit(ctx.expr());
+        } else {
+            value = alloc();
+            emit(Bytecode.LOADK, value, constant(defaultValue(ctx.type() != null ? ctx.type().getText() : "")));
+        }
+        List<TerminalNode> ids = ctx.idList().ID();
+        int[] regs = targets(ids, value);
+        for (int i = 0; i < ids.size(); i++) {
+            Local local = locals.get(ids.get(i).getText());
+            local.dynamic = dynamic;
+            local.mutable = mutable;
+            move(local.reg, regs[i]);
+            defined.add(ids.get(i).getText());
+        }
+        return null;
+    }
+
+    @Override
+    public Integer visitAssign(MinJParser.AssignContext ctx) {
+        int value = visit(ctx.expr());
+        List<TerminalNode> ids = ctx.idList().ID();
+        int[] regs = targets(ids, value);
+        for (int i = 0; i < ids.size(); i++) {
+            String name = ids.get(i).getText();
+            Local local = locals.get(name);
+            if (local == null && fields != null && fields.containsKey(name)) {
+                emit(Bytecode.SETF, locals.get("this").reg, fields.get(name), regs[i]);
+            } else if (local == null) {
+                emit(Bytecode.SETG, constant(name), regs[i]);
+            } else if (!local.mutable) {
+                requireDefined(name, local);
+                emit(Bytecode.FAIL, constant("Cannot reassign val " + name));
+            } else {
+                requireDefined(name, local);
+                if (!local.dynamic) {
+                    emit(Bytecode.CHECK, local.reg, regs[i], constant(name));
+                }
+                move(local.reg, regs[i]);
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public Integer visitPrintStmt(MinJParser.PrintStmtContext ctx) {
+        emit(Bytecode.PRINT, visit(ctx.expr()));
+        return null;
+    }
+
+    @Override
+    public Integer visitIfStmt(MinJParser.IfStmtContext ctx) {
+        List<Integer> exits = new ArrayList<>();
+        for (int i = 0; i < ctx.expr().size(); i++) {
+            int cond = visit(ctx.expr(i));
+            int next = jump(Bytecode.JMPF, cond);
+            conditionally(ctx.block(i));
+            exits.add(jump(Bytecode.JMP, -1));
+            patch(next);
+        }
+        if (ctx.block().size() > ctx.expr().size()) {
+            conditionally(ctx.block(ctx.block().size() - 1));
+        }
+        exits.forEach(this::patch);
+        return null;
+    }
+
+    @Override
+    public Integer visitWhileStmt(MinJParser.WhileStmtContext ctx) {
+        int start = size;
+        int mark = top;
+        int cond = visit(ctx.expr());
+        int exit = jump(Bytecode.JMPNOT, cond);
+        top = mark;
+        conditionally(ctx.block());
+        emit(Bytecode.LOOP, ctx.getStart().getLine());
+        emit(Bytecode.JMP, start);
+        patch(exit);
+        return null;
+    }
+
+    @Override
+    public Integer visitForStmt(MinJParser.ForStmtContext ctx) {
+        int statementTop = top;
+        MinJParser.AssignContext step;
+        int counter;
+        if (ctx.varDecl() != null) {
+            visit(ctx.varDecl());
+            counter = locals.get(ctx.varDecl().idList().ID(0).getText()).reg;
+            step = ctx.assign().isEmpty() ? null : ctx.assign(0);
+        } else {
+            MinJParser.AssignContext init = ctx.assign(0);
+            int value = visit(init.expr());
+            Local local = locals.get(init.idList().ID(0).getText());
+            local.dynamic = true;
+            local.mutable = true;
+            move(local.reg, value);
+            defined.add(init.idList().ID(0).getText());
+            counter = local.reg;
+            step = ctx.assign().size() > 1 ? ctx.assign(1) : null;
+        }
+        top = statementTop;
+
+        // the upper bound is evaluated once and kept in a reserved temporary
+        int upper = alloc();
+        move(upper, visit(ctx.expr()));
+        top = upper + 1;
+        int mark = top;
+
+        int start = size;
+        int cond = alloc();
+        emit(Bytecode.LE, cond, counter, upper);
+        int exit = jump(Bytecode.JMPNOT, cond);
+        top = mark;
+        conditionally(ctx.block());
+        emit(Bytecode.LOOP, ctx.getStart().getLine());
+        if (step != null) {
+            move(counter, visit(step.expr()));
+            top = mark;
+        } else {
+            emit(Bytecode.INC, counter);
+        }
+        emit(Bytecode.JMP, start);
+        patch(exit);
+        return null;
+    }
+
+    @Override
+    public Integer visitForeachStmt(MinJParser.ForeachStmtContext ctx) {
+        Local item = locals.get(ctx.ID().getText());
+        item.dynamic = true;
+        item.mutable = true;
+
+        // the collection and index live in reserved temporaries for the whole loop
+        int list = alloc();
+        move(list, visit(ctx.expr()));
+        top = list + 1;
+        int index = alloc();
+        emit(Bytecode.ITERPREP, list, item.reg);
+        defined.add(ctx.ID().getText());
+        emit(Bytecode.LOADI, index, 0);
+        int mark = top;
+
+        int start = size;
+        emit(Bytecode.ITERNEXT, item.reg, list, index, -1);
+        int exit = size - 1;
+        conditionally(ctx.block());
+        top = mark;
+        emit(Bytecode.LOOP, ctx.getStart().getLine());
+        emit(Bytecode.JMP, start);
+        patch(exit);
+        return null;
+    }
+
+    @Override
+    public Integer visitReturnStmt(MinJParser.ReturnStmtContext ctx) {
+        List<MinJParser.ExprContext> values = ctx.exprList().expr();
+        if (values.size() == 1) {
+            emit(Bytecode.RET, visit(values.get(0)));
+        } else {
+            int base = arguments(values);
+            top = base;
+            int result = alloc();
+            emit(Bytecode.NEWLIST, result, base, values.size());
+            emit(Bytecode.RET, result);
+        }
+        return null;
+    }
+
+    @Override
+    public Integer visitExprStmt(MinJParser.ExprStmtContext ctx) {
+        visit(ctx.expr());
+        return null;
+    }
+
+    @Override
+    public Integer visitBlock(MinJParser.BlockContext ctx) {
+        int mark = top;
+        for (MinJParser.StatementContext s : ctx.statement()) {
+            visit(s);
+            top = mark;
+        }
+        return null;
+    }
+
+    /**
+     * Binds a global function to its name from here on, like EvalVisitor's
+     * {@code globalMethods}; the body is compiled separately.
+     */
+    @Override
+    public Integer visitMethodDecl(MinJParser.MethodDeclContext ctx) {
+        emit(Bytecode.FUNC, constant(ctx.ID().getText()), functionIndex.get(ctx));
+        return null;
+    }
+
+    /**
+     * Declares the class and runs its body: field initializers and
+     * statements in source order. Methods are queued for {@link #compile}.
+     */
+    @Override
+    public Integer visitClassDecl(MinJParser.ClassDeclContext ctx) {
+        String className = ctx.ID().getText();
+        List<ParserRuleContext> members = ctx.classBody().getRuleContexts(ParserRuleContext.class);
+        Map<String, Integer> classFields = new LinkedHashMap<>();
+        Map<String, MinJParser.MethodDeclContext> classMethods = new LinkedHashMap<>();
+        for (ParserRuleContext member : members) {
+            if (member instanceof MinJParser.FieldDeclContext f) {
+                f.varDecl().idList().ID().forEach(id -> classFields.putIfAbsent(id.getText(), classFields.size()));
+            } else if (member instanceof MinJParser.MethodDeclContext m) {
+                classMethods.put(m.ID().getText(), m);
+            }
+        }
+
+        // method functions follow the script and the global functions
+        int[] methodFunctions = new int[classMethods.size()];
+        int m = 0;
+        for (MinJParser.MethodDeclContext decl : classMethods.values()) {
+            methodFunctions[m++] = functionIndex.size() + 1 + methods.size();
+            methods.add(new Method(className + "." + decl.ID().getText(), decl, classFields));
+        }
+        int classIndex = classes.size();
+        classes.add(new Bytecode.ClassInfo(className,
+                classFields.keySet().toArray(new String[0]),
+                classMethods.keySet().toArray(new String[0]),
+                methodFunctions));
+
+        emit(Bytecode.CLASS, classIndex);
+        int mark = top;
+        for (ParserRuleContext member : members) {
+            if (member instanceof MinJParser.FieldDeclContext f) {
+                MinJParser.VarDeclContext decl = f.varDecl();
+                int value;
+                if (decl.ASSIGN() != null) {
+                    value = visit(decl.expr());
+                } else {
+                    value = alloc();
+                    emit(Bytecode.LOADK, value, constant(defaultValue(decl.type() != null ? decl.type().getText() : "")));
+                }
+                int type = decl.type() != null ? constant(decl.type().getText()) : -1;
+                int flags = (decl.VAR() != null ? Bytecode.F_DYNAMIC : 0)
+                        | (decl.VAL() == null ? Bytecode.F_MUTABLE : 0);
+                // like EvalVisitor, every name gets the whole initializer value
+                for (TerminalNode id : decl.idList().ID()) {
+                    emit(Bytecode.INITF, classIndex, classFields.get(id.getText()), value, type, flags);
+                }
+            } else if (member instanceof MinJParser.StatementContext s) {
+                visit(s);
+            }
+            top = mark;
+        }
+        return null;
+    }
+
+    // === Expression Visitors ===
+
+    @Override
+    public Integer visitExpr(MinJParser.ExprContext ctx) {
+        // Unary
+        if (ctx.op == null && ctx.expr().size() == 1) {
+            int mark = top;
+            int operand = visit(ctx.expr(0));
+            top = mark;
+            int result = alloc();
+            boolean not = ((TerminalNode) ctx.getChild(0)).getSymbol().getType() == MinJParser.NOT;
+            emit(not ? Bytecode.NOT : Bytecode.NEG, result, operand);
+            return result;
+        }
+
+        // Binary
+        if (ctx.op != null) {
+            int mark = top;
+            int l = visit(ctx.expr(0));
+            int r = visit(ctx.expr(1));
+            top = mark;
+            int result = alloc();
+            emit(binaryOpcode(ctx.op.getType()), result, l, r);
+            return result;
+        }
+
+        // Primary
+        return visit(ctx.primary());
+    }
+
+    @Override
+    public Integer visitNewExpr(MinJParser.NewExprContext ctx) {
+        int result = alloc();
+        emit(Bytecode.NEWOBJ, result, constant(ctx.ID().getText()));
+        return result;
+    }
+
+    @Override
+    public Integer visitDotCallExpr(MinJParser.DotCallExprContext ctx) {
+        // the receiver goes right below the arguments
+        List<ParseTree> operands = new ArrayList<>();
+        operands.add(ctx.primary());
+        if (ctx.argList() != null) {
+            operands.addAll(ctx.argList().expr());
+        }
+        int base = arguments(operands);
+        top = base;
+        int result = alloc();
+        emit(Bytecode.CALLM, result, constant(ctx.ID().getText()), base, operands.size() - 1);
+        return result;
+    }
+
+    @Override
+    public Integer visitCallExprPrimary(MinJParser.CallExprPrimaryContext ctx) {
+        String name = ctx.ID().getText();
+        List<MinJParser.ExprContext> args = ctx.argList() != null ? ctx.argList().expr() : List.of();
+        boolean input = "input".equals(name);
+        if (!input && !functionNames.contains(name) && !Builtins.isBuiltin(name)) {
+            emit(Bytecode.FAIL, constant("Unknown function: " + name));
+        }
+        int base = arguments(args);
+        top = base;
+        int result = alloc();
+        // input() cannot be redefined; any other name is bound when the call runs
+        emit(input ? Bytecode.CALLB : Bytecode.CALL, result, constant(name), base, args.size(), ctx.getStart().getLine());
+        return result;
+    }
+
+    @Override
+    public Integer visitIntLiteral(MinJParser.IntLiteralContext ctx) {
+        int result = alloc();
+        emit(Bytecode.LOADI, result, Integer.parseInt(ctx.INT().getText()));
+        return result;
+    }
+
+    @Override
+    public Integer visitFloatLiteral(MinJParser.FloatLiteralContext ctx) {
+        return loadConstant(Float.parseFloat(ctx.FLOAT_LIT().getText().replaceAll("[fF]$", "")));
+    }
+
+    @Override
+    public Integer visitDoubleLiteral(MinJParser.DoubleLiteralContext ctx) {
+        return loadConstant(Double.parseDouble(ctx.DOUBLE_LIT().getText()));
+    }
+
+    @Override
+    public Integer visitStringLiteral(MinJParser.StringLiteralContext ctx) {
+        String s = ctx.STRING().getText();
+        return loadConstant(s.length() < 2 ? s : s.substring(1, s.length() - 1));
+    }
+
+    @Override
+    public Integer visitCharLiteral(MinJParser.CharLiteralContext ctx) {
+        return loadConstant(ctx.CHAR().getText().charAt(1));
+    }
+
+    @Override
+    public Integer visitBoolLiteral(MinJParser.BoolLiteralContext ctx) {
+        return loadConstant(Boolean.parseBoolean(ctx.BOOL_LIT().getText()));
+    }
+
+    @Override
+    public Integer visitVarReference(MinJParser.VarReferenceContext ctx) {
+        String name = ctx.ID().getText();
+        Local local = locals.get(name);
+        if (local != null) {
+            requireDefined(name, local);
+            return local.reg;
+        }
+        int result = alloc();
+        if (fields != null && fields.containsKey(name)) {
+            emit(Bytecode.GETF, result, locals.get("this").reg, fields.get(name));
+        } else {
+            emit(Bytecode.GETG, result, constant(name));
+        }
+        return result;
+    }
+
+    @Override
+    public Integer visitParenExpr(MinJParser.ParenExprContext ctx) {
+        return visit(ctx.expr());
+    }
+
+    @Override
+    public Integer visitListExpr(MinJParser.ListExprContext ctx) {
+        return visitListLiteral(ctx.listLiteral());
+    }
+
+    @Override
+    public Integer visitListLiteral(MinJParser.ListLiteralContext ctx) {
+        int base = arguments(ctx.expr());
+        top = base;
+        int result = alloc();
+        emit(Bytecode.NEWLIST, result, base, ctx.expr().size());
+        return result;
+    }
+
+    // === Helpers ===
+
+    /**
+     * Compiles a branch or loop body that might not run: names it declares
+     * are not definitely declared afterwards.
+     */
+    private void conditionally(MinJParser.BlockContext block) {
+        Set<String> before = new HashSet<>(defined);
+        visit(block);
+        defined = before;
+    }
+
+    /**
+     * Emits a run-time check unless {@code name} is declared on every path to here.
+     */
+    private void requireDefined(String name, Local local) {
+        if (!defined.contains(name)) {
+            emit(Bytecode.DEFINED, local.reg, constant(name));
+        }
+    }
+
+    /**
+     * Evaluates {@code exprs} into consecutive registers and returns the first.
+     * The registers stay allocated; callers reset {@code top} when done.
+     */
+    private int arguments(List<? extends ParseTree> exprs) {
+        int base = top;
+        top += exprs.size();
+        maxTop = Math.max(maxTop, top);
+        for (int i = 0; i < exprs.size(); i++) {
+            int mark = top;
+            move(base + i, visit(exprs.get(i)));
+            top = mark;
+        }
+        return base;
+    }
+
+    /**
+     * Returns one source register per target name, unpacking a list for multi-assignment.
+     */
+    private int[] targets(List<TerminalNode> ids, int value) {
+        if (ids.size() == 1) return new int[]{value};
+        int base = top;
+        top += ids.size();
+        maxTop = Math.max(maxTop, top);
+        emit(Bytecode.UNPACK, base, ids.size(), value);
+        int[] regs = new int[ids.size()];
+        for (int i = 0; i < regs.length; i++) regs[i] = base + i;
+        return regs;
+    }
+
+    private int loadConstant(Object value) {
+        int result = alloc();
+        emit(Bytecode.LOADK, result, constant(value));
+        return result;
+    }
+
+    private int constant(Object value) {
+        return constantIndex.computeIfAbsent(value, v -> {
+            constants.add(v);
+            return constants.size() - 1;
+        });
+    }
+
+    private int alloc() {
+        int r = top++;
+        maxTop = Math.max(maxTop, top);
+        return r;
+    }
+
+    private void move(int to, int from) {
+        if (to != from) emit(Bytecode.MOVE, to, from);
+    }
+
+    /**
+     * Emits a jump with an open target and returns the index of that operand.
+     */
+    private int jump(int op, int cond) {
+        if (op == Bytecode.JMP) {
+            emit(op, -1);
+        } else {
+            emit(op, cond, -1);
+        }
+        return size - 1;
+    }
+
+    /**
+     * Points the jump operand at {@code at} to the current end of code.
+     */
+    private void patch(int at) {
+        code[at] = size;
+    }
+
+    private void emit(int... words) {
+        if (size + words.length > code.length) {
+            code = Arrays.copyOf(code, Math.max(code.length * 2, size + words.length));
+        }
+        System.arraycopy(words, 0, code, size, words.length);
+        size += words.length;
+    }
+
+    private static int binaryOpcode(int tokenType) {
+        return switch (tokenType) {
+            case MinJParser.ADD -> Bytecode.ADD;
+            case MinJParser.SUB -> Bytecode.SUB;
+            case MinJParser.MUL -> Bytecode.MUL;
+            case MinJParser.DIV -> Bytecode.DIV;
+            case MinJParser.MOD -> Bytecode.MOD;
+            case MinJParser.LT -> Bytecode.LT;
+            case MinJParser.LE -> Bytecode.LE;
+            case MinJParser.GT -> Bytecode.GT;
+            case MinJParser.GE -> Bytecode.GE;
+            case MinJParser.EQ -> Bytecode.EQ;
+            case MinJParser.NE -> Bytecode.NE;
+            case MinJParser.AND -> Bytecode.AND;
+            case MinJParser.OR -> Bytecode.OR;
+            case MinJParser.XOR -> Bytecode.XOR;
+            default -> throw new IllegalArgumentException("Unknown operator token: " + tokenType);
+        };
+    }
+
+    /**
+     * Default value of an uninitialized declaration, matching EvalVisitor.
+     */
+    private static Object defaultValue(String type) {
+        return switch (type) {
+            case "int", "integer", "Int", "Integer" -> 0;
+            case "float", "Float" -> 0f;
+            case "double", "Double" -> 0.0;
+            case "boolean", "bool", "Boolean", "Bool" -> false;
+            case "char", "Char" -> '\0';
+            default -> "";
+        };
+    }
+
+    // === Nested Types ===
+
+    /**
+     * A named register and the binding flags of its most recent declaration.
+     */
+    private static final class Local {
+        final int reg;
+        boolean dynamic;
+        boolean mutable;
+
+        Local(int reg, boolean dynamic, boolean mutable) {
+            this.reg = reg;
+            this.dynamic = dynamic;
+            this.mutable = mutable;
+        }
+    }
+
+    /**
+     * A class method waiting to be compiled, with the field slots of its class.
+     */
+    private record Method(String name, MinJParser.MethodDeclContext decl, Map<String, Integer> fields) {
+    }
+}
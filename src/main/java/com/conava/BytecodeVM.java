@@ -0,0 +1,688 @@
+package com.conava;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Executes {@link Bytecode} with a dense dispatch loop over {@code int[]} code.
+ * <p>
+ * Registers are primitive-tagged: one shared register file of parallel arrays
+ * holds a type tag, the raw bits of ints, doubles, floats, booleans and chars,
+ * and a reference slot for strings and lists. Each call slides a window over
+ * the file, so arithmetic on numbers never boxes. Values are boxed only where
+ * they leave the VM (print, lists, builtins, globals, object fields).
+ * </p>
+ * <p>
+ * Semantics follow {@link EvalVisitor}: integer arithmetic wraps, anything
+ * else is widened to {@code double}, {@code +} concatenates strings, and
+ * {@code ==} is {@code equals}, so {@code 1 == 1.0} is false.
+ * </p>
+ */
+final class BytecodeVM {
+
+    // === Register Tags ===
+
+    /**
+     * A register no instruction has written yet: the variable is not declared.
+     */
+    private static final byte T_UNDEF = 0;
+    private static final byte T_INT = 1;
+    private static final byte T_DOUBLE = 2;
+    private static final byte T_FLOAT = 3;
+    private static final byte T_BOOL = 4;
+    private static final byte T_CHAR = 5;
+    private static final byte T_REF = 6;
+    private static final byte T_NULL = 7;
+
+    private final Bytecode program;
+    private final Map<String, Object> globals = new HashMap<>();
+
+    /**
+     * Function index bound to each name constant by {@code FUNC}, or -1.
+     */
+    private final int[] bound;
+
+    /**
+     * Runtime state of each class declaration that has run, by declaration index.
+     */
+    private final ClassState[] declared;
+
+    /**
+     * Classes visible to {@code new} (name → the latest declaration that ran).
+     */
+    private final Map<String, ClassState> classTable = new HashMap<>();
+
+    private byte[] tags = new byte[256];
+    private long[] bits = new long[256];
+    private Object[] refs = new Object[256];
+
+    /**
+     * Return value handed from {@code RET} to the calling {@code CALL}.
+     */
+    private byte retTag;
+    private long retBits;
+    private Object retRef;
+
+    private PrintWriter out = new PrintWriter(System.out, true);
+    private Metrics metrics;
+    private Budget budget;
+
+    BytecodeVM(Bytecode program) {
+        this.program = program;
+        this.declared = new ClassState[program.classes.length];
+        this.bound = new int[program.constants.length];
+        Arrays.fill(bound, -1);
+    }
+
+    // === Configuration ===
+
+    void setOut(PrintWriter out) {
+        this.out = out;
+    }
+
+    void setMetrics(Metrics metrics) {
+        this.metrics = metrics;
+    }
+
+    void setBudget(Budget budget) {
+        this.budget = budget;
+    }
+
+    /**
+     * Defines a global visible to every function, like {@link EvalVisitor#defineGlobal}.
+     */
+    void defineGlobal(String name, Object value) {
+        globals.put(name, value);
+    }
+
+    /**
+     * Runs the top-level script.
+     */
+    void run() {
+        Bytecode.Function main = program.functions[0];
+        ensureCapacity(main.registers);
+        execute(main, 0);
+    }
+
+    // === Interpreter Loop ===
+
+    private void execute(Bytecode.Function fn, int base) {
+        final int[] code = fn.code;
+        final Object[] k = program.constants;
+        byte[] t = tags;
+        long[] v = bits;
+        Object[] r = refs;
+        int pc = 0;
+
+        for (;;) {
+            switch (code[pc]) {
+                case Bytecode.MOVE -> {
+                    int a = base + code[pc + 1];
+                    int b = base + code[pc + 2];
+                    t[a] = t[b];
+                    v[a] = v[b];
+                    r[a] = r[b];
+                    pc += 3;
+                }
+                case Bytecode.LOADK -> {
+                    store(base + code[pc + 1], k[code[pc + 2]]);
+                    pc += 3;
+                }
+                case Bytecode.LOADI -> {
+                    int a = base + code[pc + 1];
+                    t[a] = T_INT;
+                    v[a] = code[pc + 2];
+                    r[a] = null;
+                    pc += 3;
+                }
+                case Bytecode.ADD -> {
+                    int a = base + code[pc + 1];
+                    int b = base + code[pc + 2];
+                    int c = base + code[pc + 3];
+                    if (t[b] == T_INT && t[c] == T_INT) {
+                        setInt(a, (int) v[b] + (int) v[c]);
+                    } else if (r[b] instanceof String || r[c] instanceof String) {
+                        String s = String.valueOf(box(b)) + box(c);
+                        if (metrics != null) metrics.allocation();
+                        t[a] = T_REF;
+                        r[a] = s;
+                    } else {
+                        setDouble(a, number(b) + number(c));
+                    }
+                    pc += 4;
+                }
+                case Bytecode.SUB -> {
+                    int a = base + code[pc + 1];
+                    int b = base + code[pc + 2];
+                    int c = base + code[pc + 3];
+                    if (t[b] == T_INT && t[c] == T_INT) {
+                        setInt(a, (int) v[b] - (int) v[c]);
+                    } else {
+                        setDouble(a, number(b) - number(c));
+                    }
+                    pc += 4;
+                }
+                case Bytecode.MUL -> {
+                    int a = base + code[pc + 1];
+                    int b = base + code[pc + 2];
+                    int c = base + code[pc + 3];
+                    if (t[b] == T_INT && t[c] == T_INT) {
+                        setInt(a, (int) v[b] * (int) v[c]);
+                    } else {
+                        setDouble(a, number(b) * number(c));
+                    }
+                    pc += 4;
+                }
+                case Bytecode.DIV -> {
+                    int a = base + code[pc + 1];
+                    int b = base + code[pc + 2];
+                    int c = base + code[pc + 3];
+                    if (t[b] == T_INT && t[c] == T_INT) {
+                        setInt(a, (int) v[b] / (int) v[c]);
+                    } else {
+                        setDouble(a, number(b) / number(c));
+                    }
+                    pc += 4;
+                }
+                case Bytecode.MOD -> {
+                    int a = base + code[pc + 1];
+                    int b = base + code[pc + 2];
+                    int c = base + code[pc + 3];
+                    if (t[b] == T_INT && t[c] == T_INT) {
+                        setInt(a, (int) v[b] % (int) v[c]);
+                    } else {
+                        setDouble(a, number(b) % number(c));
+                    }
+                    pc += 4;
+                }
+                case Bytecode.LT -> {
+                    setBool(base + code[pc + 1], number(base + code[pc + 2]) < number(base + code[pc + 3]));
+                    pc += 4;
+                }
+                case Bytecode.LE -> {
+                    setBool(base + code[pc + 1], number(base + code[pc + 2]) <= number(base + code[pc + 3]));
+                    pc += 4;
+                }
+                case Bytecode.GT -> {
+                    setBool(base + code[pc + 1], number(base + code[pc + 2]) > number(base + code[pc + 3]));
+                    pc += 4;
+                }
+                case Bytecode.GE -> {
+                    setBool(base + code[pc + 1], number(base + code[pc + 2]) >= number(base + code[pc + 3]));
+                    pc += 4;
+                }
+                case Bytecode.EQ -> {
+                    setBool(base + code[pc + 1], same(base + code[pc + 2], base + code[pc + 3]));
+                    pc += 4;
+                }
+                case Bytecode.NE -> {
+                    setBool(base + code[pc + 1], !same(base + code[pc + 2], base + code[pc + 3]));
+                    pc += 4;
+                }
+                case Bytecode.AND -> {
+                    setBool(base + code[pc + 1], bool(base + code[pc + 2]) & bool(base + code[pc + 3]));
+                    pc += 4;
+                }
+                case Bytecode.OR -> {
+                    setBool(base + code[pc + 1], bool(base + code[pc + 2]) | bool(base + code[pc + 3]));
+                    pc += 4;
+                }
+                case Bytecode.XOR -> {
+                    setBool(base + code[pc + 1], bool(base + code[pc + 2]) ^ bool(base + code[pc + 3]));
+                    pc += 4;
+                }
+                case Bytecode.NOT -> {
+                    setBool(base + code[pc + 1], !bool(base + code[pc + 2]));
+                    pc += 3;
+                }
+                case Bytecode.NEG -> {
+                    int a = base + code[pc + 1];
+                    int b = base + code[pc + 2];
+                    if (t[b] == T_INT) {
+                        setInt(a, -(int) v[b]);
+                    } else if (t[b] == T_DOUBLE || t[b] == T_FLOAT || r[b] instanceof Number) {
+                        setDouble(a, -number(b));
+                    } else {
+                        throw new IllegalArgumentException("Cannot negate: " + box(b));
+                    }
+                    pc += 3;
+                }
+                case Bytecode.INC -> {
+                    int a = base + code[pc + 1];
+                    if (t[a] == T_INT) {
+                        v[a] = (int) v[a] + 1;
+                    } else {
+                        setDouble(a, number(a) + 1.0);
+                    }
+                    pc += 2;
+                }
+                case Bytecode.JMP -> pc = code[pc + 1];
+                case Bytecode.JMPF -> {
+                    int a = base + code[pc + 1];
+                    pc = t[a] == T_BOOL && v[a] != 0 ? pc + 3 : code[pc + 2];
+                }
+                case Bytecode.JMPNOT -> pc = bool(base + code[pc + 1]) ? pc + 3 : code[pc + 2];
+                case Bytecode.LOOP -> {
+                    if (metrics != null) metrics.loopIteration();
+                    if (budget != null) budget.poll(code[pc + 1]);
+                    pc += 2;
+                }
+                case Bytecode.CHECK -> {
+                    if (!assignable(base + code[pc + 1], base + code[pc + 2])) {
+                        throw new IllegalStateException("Type mismatch for " + k[code[pc + 3]]);
+                    }
+                    pc += 4;
+                }
+                case Bytecode.FAIL -> throw new IllegalStateException((String) k[code[pc + 1]]);
+                case Bytecode.NEWLIST -> {
+                    List<Object> list = collect(base + code[pc + 2], code[pc + 3]);
+                    if (metrics != null) metrics.allocation();
+                    int a = base + code[pc + 1];
+                    t[a] = T_REF;
+                    r[a] = list;
+                    pc += 4;
+                }
+                case Bytecode.UNPACK -> {
+                    int a = base + code[pc + 1];
+                    int n = code[pc + 2];
+                    List<?> list = (List<?>) box(base + code[pc + 3]);
+                    if (list.size() != n) throw new IllegalStateException("Bind arity mismatch");
+                    for (int i = 0; i < n; i++) {
+                        store(a + i, list.get(i));
+                    }
+                    pc += 4;
+                }
+                case Bytecode.ITERPREP -> {
+                    int a = base + code[pc + 1];
+                    if (!(r[a] instanceof List)) {
+                        throw new IllegalArgumentException("Cannot iterate over: " + box(a));
+                    }
+                    store(base + code[pc + 2], null);
+                    pc += 3;
+                }
+                case Bytecode.ITERNEXT -> {
+                    List<?> list = (List<?>) r[base + code[pc + 2]];
+                    int i = base + code[pc + 3];
+                    int index = (int) v[i];
+                    if (index >= list.size()) {
+                        pc = code[pc + 4];
+                    } else {
+                        store(base + code[pc + 1], list.get(index));
+                        v[i] = index + 1;
+                        pc += 5;
+                    }
+                }
+                case Bytecode.CALL -> {
+                    int f = bound[code[pc + 2]];
+                    if (f < 0) {
+                        // no user function by that name yet: the builtin, as in EvalVisitor
+                        String name = (String) k[code[pc + 2]];
+                        if (!Builtins.isBuiltin(name)) throw new IllegalStateException("Unknown function: " + name);
+                        callBuiltin(name, base + code[pc + 3], code[pc + 4], base + code[pc + 1], code[pc + 5]);
+                    } else {
+                        Bytecode.Function callee = program.functions[f];
+                        int n = code[pc + 4];
+                        if (n < callee.arity) {
+                            throw new IllegalStateException(callee.name + " expects " + callee.arity + " argument(s), got " + n);
+                        }
+                        invoke(callee, base + fn.registers, base + code[pc + 3], base + code[pc + 1]);
+                        // a nested call may have grown the register file
+                        t = tags;
+                        v = bits;
+                        r = refs;
+                    }
+                    pc += 6;
+                }
+                case Bytecode.CALLM -> {
+                    String name = (String) k[code[pc + 2]];
+                    int receiver = base + code[pc + 3];
+                    if (!(r[receiver] instanceof Instance obj)) {
+                        throw new ClassCastException("Not an object: " + box(receiver));
+                    }
+                    Integer index = obj.cls.methods.get(name);
+                    if (index == null) throw new IllegalStateException("No method: " + name);
+                    Bytecode.Function callee = program.functions[index];
+                    // the receiver is the hidden first parameter
+                    int n = code[pc + 4];
+                    if (n < callee.arity - 1) {
+                        throw new IllegalStateException(callee.name + " expects " + (callee.arity - 1) + " argument(s), got " + n);
+                    }
+                    invoke(callee, base + fn.registers, receiver, base + code[pc + 1]);
+                    t = tags;
+                    v = bits;
+                    r = refs;
+                    pc += 5;
+                }
+                case Bytecode.CALLB -> {
+                    callBuiltin((String) k[code[pc + 2]], base + code[pc + 3], code[pc + 4], base + code[pc + 1], code[pc + 5]);
+                    pc += 6;
+                }
+                case Bytecode.FUNC -> {
+                    bound[code[pc + 1]] = code[pc + 2];
+                    pc += 3;
+                }
+                case Bytecode.RET -> {
+                    if (metrics != null) metrics.returned();
+                    int a = base + code[pc + 1];
+                    retTag = t[a];
+                    retBits = v[a];
+                    retRef = r[a];
+                    return;
+                }
+                case Bytecode.RETNIL -> {
+                    retTag = T_NULL;
+                    retRef = null;
+                    return;
+                }
+                case Bytecode.PRINT -> {
+                    out.println(box(base + code[pc + 1]));
+                    pc += 2;
+                }
+                case Bytecode.GETG -> {
+                    String name = (String) k[code[pc + 2]];
+                    Object value = globals.get(name);
+                    if (value == null && !globals.containsKey(name)) {
+                        throw new IllegalStateException("Undefined: " + name);
+                    }
+                    store(base + code[pc + 1], value);
+                    pc += 3;
+                }
+                case Bytecode.SETG -> {
+                    String name = (String) k[code[pc + 1]];
+                    if (!globals.containsKey(name)) throw new IllegalStateException("Undefined: " + name);
+                    globals.put(name, box(base + code[pc + 2]));
+                    pc += 3;
+                }
+                case Bytecode.DEFINED -> {
+                    if (t[base + code[pc + 1]] == T_UNDEF) {
+                        throw new IllegalStateException("Undefined: " + k[code[pc + 2]]);
+                    }
+                    pc += 3;
+                }
+                case Bytecode.CLASS -> {
+                    ClassState cls = new ClassState(program.classes[code[pc + 1]]);
+                    declared[code[pc + 1]] = cls;
+                    classTable.put(cls.info.name, cls);
+                    pc += 2;
+                }
+                case Bytecode.INITF -> {
+                    ClassState cls = declared[code[pc + 1]];
+                    int f = code[pc + 2];
+                    Object value = box(base + code[pc + 3]);
+                    int type = code[pc + 4];
+                    int flags = code[pc + 5];
+                    cls.defaults[f] = value;
+                    cls.types[f] = type >= 0 ? typeOf((String) k[type]) : value == null ? Object.class : value.getClass();
+                    cls.dynamic[f] = (flags & Bytecode.F_DYNAMIC) != 0;
+                    cls.mutable[f] = (flags & Bytecode.F_MUTABLE) != 0;
+                    pc += 6;
+                }
+                case Bytecode.NEWOBJ -> {
+                    ClassState cls = classTable.get((String) k[code[pc + 2]]);
+                    if (cls == null) throw new IllegalStateException("Unknown class");
+                    if (metrics != null) metrics.allocation();
+                    int a = base + code[pc + 1];
+                    t[a] = T_REF;
+                    r[a] = new Instance(cls);
+                    pc += 3;
+                }
+                case Bytecode.GETF -> {
+                    Instance obj = (Instance) r[base + code[pc + 2]];
+                    store(base + code[pc + 1], obj.fields[code[pc + 3]]);
+                    pc += 4;
+                }
+                case Bytecode.SETF -> {
+                    Instance obj = (Instance) r[base + code[pc + 1]];
+                    int f = code[pc + 2];
+                    Object value = box(base + code[pc + 3]);
+                    // the same checks as EvalVisitor's field cells
+                    if (!obj.cls.mutable[f]) {
+                        throw new IllegalStateException("Cannot reassign val " + obj.cls.info.fields[f]);
+                    }
+                    if (!obj.cls.dynamic[f] && (value == null || !obj.cls.types[f].isAssignableFrom(value.getClass()))) {
+                        throw new IllegalStateException("Type mismatch for " + obj.cls.info.fields[f]);
+                    }
+                    obj.fields[f] = value;
+                    pc += 4;
+                }
+                default -> throw new IllegalStateException("Bad opcode " + code[pc] + " at " + fn.name + ":" + pc);
+            }
+        }
+    }
+
+    /**
+     * Runs {@code callee} in a frame at {@code calleeBase}, with its parameters
+     * copied from the registers at {@code args}, and stores its result in {@code a}.
+     */
+    private void invoke(Bytecode.Function callee, int calleeBase, int args, int a) {
+        if (budget != null) budget.poll(callee.line);
+        if (metrics != null) metrics.call();
+        ensureCapacity(calleeBase + callee.registers);
+        byte[] t = tags;
+        long[] v = bits;
+        Object[] r = refs;
+        System.arraycopy(t, args, t, calleeBase, callee.arity);
+        System.arraycopy(v, args, v, calleeBase, callee.arity);
+        System.arraycopy(r, args, r, calleeBase, callee.arity);
+        Arrays.fill(t, calleeBase + callee.arity, calleeBase + callee.registers, T_UNDEF);
+        Arrays.fill(r, calleeBase + callee.arity, calleeBase + callee.registers, null);
+
+        execute(callee, calleeBase);
+
+        tags[a] = retTag;
+        bits[a] = retBits;
+        refs[a] = retRef;
+        retRef = null;
+    }
+
+    /**
+     * Runs {@code input} or a native builtin on the {@code n} values at
+     * {@code args}, charging the budget, and stores the result in {@code a}.
+     */
+    private void callBuiltin(String name, int args, int n, int a, int line) {
+        Object result;
+        if ("input".equals(name)) {
+            result = readLine(n > 0 ? String.valueOf(box(args)) : null);
+        } else {
+            if (metrics != null) metrics.call();
+            List<Object> values = collect(args, n);
+            result = Builtins.call(name, values);
+            if (budget != null) budget.charge(Builtins.cost(values), line);
+        }
+        store(a, result);
+    }
+
+    // === Register Access ===
+
+    private void setInt(int a, int value) {
+        tags[a] = T_INT;
+        bits[a] = value;
+        refs[a] = null;
+    }
+
+    private void setDouble(int a, double value) {
+        tags[a] = T_DOUBLE;
+        bits[a] = Double.doubleToRawLongBits(value);
+        refs[a] = null;
+    }
+
+    private void setBool(int a, boolean value) {
+        tags[a] = T_BOOL;
+        bits[a] = value ? 1 : 0;
+        refs[a] = null;
+    }
+
+    /**
+     * Unboxes {@code value} into register {@code a}.
+     */
+    private void store(int a, Object value) {
+        if (value instanceof Integer i) {
+            setInt(a, i);
+        } else if (value instanceof Double d) {
+            setDouble(a, d);
+        } else if (value instanceof Float f) {
+            tags[a] = T_FLOAT;
+            bits[a] = Double.doubleToRawLongBits(f);
+            refs[a] = null;
+        } else if (value instanceof Boolean b) {
+            setBool(a, b);
+        } else if (value instanceof Character c) {
+            tags[a] = T_CHAR;
+            bits[a] = c;
+            refs[a] = null;
+        } else {
+            tags[a] = value == null ? T_NULL : T_REF;
+            refs[a] = value;
+        }
+    }
+
+    /**
+     * Boxes register {@code a} for use outside the VM.
+     */
+    private Object box(int a) {
+        return switch (tags[a]) {
+            case T_INT -> (int) bits[a];
+            case T_DOUBLE -> Double.longBitsToDouble(bits[a]);
+            case T_FLOAT -> (float) Double.longBitsToDouble(bits[a]);
+            case T_BOOL -> bits[a] != 0;
+            case T_CHAR -> (char) bits[a];
+            default -> refs[a];
+        };
+    }
+
+    private double number(int a) {
+        return switch (tags[a]) {
+            case T_INT -> (int) bits[a];
+            case T_DOUBLE, T_FLOAT -> Double.longBitsToDouble(bits[a]);
+            default -> {
+                if (refs[a] instanceof Number n) yield n.doubleValue();
+                throw new ClassCastException("Not a number: " + box(a));
+            }
+        };
+    }
+
+    private boolean bool(int a) {
+        if (tags[a] != T_BOOL) throw new ClassCastException("Not a boolean: " + box(a));
+        return bits[a] != 0;
+    }
+
+    /**
+     * {@code equals} semantics: values of different types are never equal.
+     */
+    private boolean same(int a, int b) {
+        if (tags[a] != tags[b]) return false;
+        return switch (tags[a]) {
+            case T_NULL -> true;
+            case T_DOUBLE -> Double.doubleToLongBits(Double.longBitsToDouble(bits[a]))
+                    == Double.doubleToLongBits(Double.longBitsToDouble(bits[b]));
+            case T_FLOAT -> Float.floatToIntBits((float) Double.longBitsToDouble(bits[a]))
+                    == Float.floatToIntBits((float) Double.longBitsToDouble(bits[b]));
+            case T_REF -> Objects.equals(refs[a], refs[b]);
+            default -> bits[a] == bits[b];
+        };
+    }
+
+    /**
+     * True if the value in {@code src} may be stored in the typed variable {@code dst}.
+     */
+    private boolean assignable(int dst, int src) {
+        if (tags[dst] == T_UNDEF || tags[dst] == T_NULL) return true;
+        if (tags[dst] != tags[src]) return false;
+        return tags[dst] != T_REF || refs[dst].getClass().isAssignableFrom(refs[src].getClass());
+    }
+
+    private List<Object> collect(int from, int n) {
+        List<Object> list = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            list.add(box(from + i));
+        }
+        return list;
+    }
+
+    /**
+     * Maps a declared type keyword to its Java class, like {@link EvalVisitor}.
+     */
+    private static Class<?> typeOf(String keyword) {
+        return switch (keyword) {
+            case "int", "integer", "Int", "Integer" -> Integer.class;
+            case "float", "Float" -> Float.class;
+            case "double", "Double" -> Double.class;
+            case "boolean", "bool", "Boolean", "Bool" -> Boolean.class;
+            case "char", "Char" -> Character.class;
+            case "String", "string" -> String.class;
+            default -> Object.class;
+        };
+    }
+
+    private void ensureCapacity(int needed) {
+        if (needed <= tags.length) return;
+        int capacity = Math.max(needed, tags.length * 2);
+        tags = Arrays.copyOf(tags, capacity);
+        bits = Arrays.copyOf(bits, capacity);
+        refs = Arrays.copyOf(refs, capacity);
+    }
+
+    private String readLine(String prompt) {
+        if (prompt != null && !prompt.isEmpty()) {
+            System.out.print(prompt + " ");
+        }
+        System.out.print("Input > ");
+        System.out.flush();
+        try {
+            return new BufferedReader(new InputStreamReader(System.in)).readLine();
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    // === Nested Types ===
+
+    /**
+     * A class declaration that has run: the field values and binding flags
+     * its initializers produced, and its methods (name → function index).
+     */
+    private static final class ClassState {
+        final Bytecode.ClassInfo info;
+        final Object[] defaults;
+        final Class<?>[] types;
+        final boolean[] dynamic;
+        final boolean[] mutable;
+        final Map<String, Integer> methods = new HashMap<>();
+
+        ClassState(Bytecode.ClassInfo info) {
+            this.info = info;
+            int n = info.fields.length;
+            defaults = new Object[n];
+            types = new Class<?>[n];
+            dynamic = new boolean[n];
+            mutable = new boolean[n];
+            Arrays.fill(types, Object.class);
+            Arrays.fill(dynamic, true);
+            Arrays.fill(mutable, true);
+            for (int m = 0; m < info.methods.length; m++) {
+                methods.put(info.methods[m], info.functions[m]);
+            }
+        }
+    }
+
+    /**
+     * An object: a copy of its class's field values at {@code new} time.
+     */
+    private static final class Instance {
+        final ClassState cls;
+        final Object[] fields;
+
+        Instance(ClassState cls) {
+            this.cls = cls;
+            this.fields = cls.defaults.clone();
+        }
+    }
+}
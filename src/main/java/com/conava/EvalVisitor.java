@@ -4,6 +4,7 @@ import java.util.*;
 import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStreamReader;
+import java.io.PrintWriter;
 
 import org.antlr.v4.runtime.tree.ParseTree;
 import org.antlr.v4.runtime.tree.TerminalNode;
@@ -59,6 +60,114 @@ public class EvalVisitor extends MinJBaseVisitor<Object> {
      */
     private ClassDef currentClass;
 
+    /**
+     * Hot-spot profiler, or null when profiling is disabled.
+     */
+    private Profiler profiler;
+
+    /**
+     * Runtime counters, or null when metrics are disabled.
+     */
+    private Metrics metrics;
+
+    /**
+     * Fuel and time limits, or null for unlimited execution.
+     */
+    private Budget budget;
+
+    /**
+     * Destination of {@code print} statements.
+     */
+    private PrintWriter out = new PrintWriter(System.out, true);
+
+    // === Instrumentation ===
+
+    /**
+     * Attaches a profiler that records per-function and per-line hot spots.
+     * Without one, instrumentation points cost a single null check.
+     */
+    public void setProfiler(Profiler profiler) {
+        this.profiler = profiler;
+    }
+
+    /**
+     * Attaches counters for calls, returns, allocations and loop iterations;
+     * read them with {@link Metrics#snapshot()}.
+     */
+    public void setMetrics(Metrics metrics) {
+        this.metrics = metrics;
+    }
+
+    /**
+     * Limits execution; the budget is polled at every loop back-edge and
+     * function entry, and builtins are charged per list element.
+     */
+    public void setBudget(Budget budget) {
+        this.budget = budget;
+    }
+
+    // === Embedding API ===
+
+    /**
+     * Redirects {@code print} output, e.g. to a {@code ScriptContext} writer.
+     */
+    public void setOut(PrintWriter out) {
+        this.out = out;
+    }
+
+    /**
+     * Defines a dynamic, mutable global visible to top-level code and all functions.
+     */
+    public void defineGlobal(String name, Object value) {
+        globals.put(name, cellOf(value, Object.class, true, true));
+    }
+
+    /**
+     * Returns the current top-level variables (name → value).
+     */
+    public Map<String, Object> topLevelVariables() {
+        Map<String, Object> vars = new HashMap<>();
+        env.forEach((name, cell) -> vars.put(name, cell.value));
+        return vars;
+    }
+
+    /**
+     * Returns true if a global function or builtin named {@code name} is callable.
+     */
+    public boolean hasFunction(String name) {
+        return globalMethods.containsKey(name) || Builtins.isBuiltin(name);
+    }
+
+    /**
+     * Calls a global function (or builtin) declared by previously executed code.
+     */
+    public Object callFunction(String name, List<Object> args) {
+        MinJParser.MethodDeclContext decl = globalMethods.get(name);
+        if (decl == null) {
+            if (!Builtins.isBuiltin(name)) throw new IllegalStateException("Unknown function: " + name);
+            return callBuiltin(name, args, 0);
+        }
+        return invokeMethod(name, decl, args);
+    }
+
+    /**
+     * Returns true if {@code receiver} is a MinJ object with a method named {@code name}.
+     */
+    public boolean hasMethod(Object receiver, String name) {
+        return receiver instanceof Obj obj && obj.def.methods.containsKey(name);
+    }
+
+    /**
+     * Calls an instance method on a MinJ object returned by the script.
+     */
+    public Object callMethod(Object receiver, String name, List<Object> args) {
+        if (!(receiver instanceof Obj obj)) {
+            throw new IllegalArgumentException("Not a MinJ object: " + receiver);
+        }
+        MinJParser.MethodDeclContext decl = obj.def.methods.get(name);
+        if (decl == null) throw new IllegalStateException("No method: " + name);
+        return invokeMethod(name, decl, args, obj);
+    }
 
     // === Visitor Entry Points ===
 
@@ -97,7 +206,7 @@ public class EvalVisitor extends MinJBaseVisitor<Object> {
     @Override
     public Object visitClassDecl(MinJParser.ClassDeclContext ctx) {
         String className = ctx.ID().getText();
-        ClassDef def = new ClassDef();
+        ClassDef def = new ClassDef(className);
         classTable.put(className, def);
 
         // enter class‐context
@@ -160,6 +269,22 @@ public class EvalVisitor extends MinJBaseVisitor<Object> {
 
     // === Statement Visitors ===
 
+    /**
+     * Executes one statement, attributing its time to its source line when profiling.
+     */
+    @Override
+    public Object visitStatement(MinJParser.StatementContext ctx) {
+        if (profiler == null) {
+            return visitChildren(ctx);
+        }
+        profiler.enterLine(ctx.getStart().getLine());
+        try {
+            return visitChildren(ctx);
+        } finally {
+            profiler.exitLine();
+        }
+    }
+
     public Object visitVarDecl(MinJParser.VarDeclContext ctx) {
         List<TerminalNode> ids = ctx.idList().ID();
         boolean dynamic = ctx.VAR() != null;
@@ -199,7 +324,7 @@ public class EvalVisitor extends MinJBaseVisitor<Object> {
 
     @Override
     public Object visitPrintStmt(MinJParser.PrintStmtContext ctx) {
-        System.out.println(visit(ctx.expr()));
+        out.println(visit(ctx.expr()));
         return null;
     }
 
@@ -220,6 +345,8 @@ public class EvalVisitor extends MinJBaseVisitor<Object> {
     public Object visitWhileStmt(MinJParser.WhileStmtContext ctx) {
         while ((boolean) visit(ctx.expr())) {
             visit(ctx.block());
+            if (metrics != null) metrics.loopIteration();
+            if (budget != null) budget.poll(ctx.getStart().getLine());
         }
         return null;
     }
@@ -232,10 +359,12 @@ public class EvalVisitor extends MinJBaseVisitor<Object> {
 
         while (((Number) cell.value).doubleValue() <= upper.doubleValue()) {
             visit(ctx.block());
+            if (metrics != null) metrics.loopIteration();
+            if (budget != null) budget.poll(ctx.getStart().getLine());
             if (step != null) {
                 cell.value = visit(step.expr());
             } else {
-                cell.value = increment(cell.value);
+                cell.value = boxed(increment(cell.value));
             }
         }
         return null;
@@ -252,6 +381,8 @@ public class EvalVisitor extends MinJBaseVisitor<Object> {
         for (Object item : list) {
             env.get(var).value = item;
             visit(ctx.block());
+            if (metrics != null) metrics.loopIteration();
+            if (budget != null) budget.poll(ctx.getStart().getLine());
         }
         return null;
     }
@@ -280,18 +411,18 @@ public class EvalVisitor extends MinJBaseVisitor<Object> {
         if (ctx.op == null && ctx.expr().size() == 1) {
             String op = ctx.getChild(0).getText();
             Object v = visit(ctx.expr(0));
-            return switch (op) {
+            return boxed(switch (op) {
                 case "!" -> !(Boolean) v;
                 case "-" -> negate(v);
                 default -> throw new IllegalArgumentException("Unknown unary: " + op);
-            };
+            });
         }
 
         // Binary
         if (ctx.op != null) {
             Object l = visit(ctx.expr(0));
             Object r = visit(ctx.expr(1));
-            return evaluateBinary(l, r, ctx.op.getText());
+            return boxed(evaluateBinary(l, r, ctx.op.getText()));
         }
 
         // Primary
@@ -302,6 +433,12 @@ public class EvalVisitor extends MinJBaseVisitor<Object> {
     public Object visitNewExpr(MinJParser.NewExprContext ctx) {
         ClassDef def = classTable.get(ctx.ID().getText());
         if (def == null) throw new IllegalStateException("Unknown class");
+        if (metrics != null) metrics.allocation();
+        InterpreterEvents.NewObject event = new InterpreterEvents.NewObject();
+        if (event.shouldCommit()) {
+            event.className = def.name;
+            event.commit();
+        }
         return new Obj(def);
     }
 
@@ -316,7 +453,9 @@ public class EvalVisitor extends MinJBaseVisitor<Object> {
         }
 
         MinJParser.MethodDeclContext decl = globalMethods.get(name);
-        if (decl == null) throw new IllegalStateException("Unknown function: " + name);
+        if (decl == null && !Builtins.isBuiltin(name)) {
+            throw new IllegalStateException("Unknown function: " + name);
+        }
 
         List<Object> args = new ArrayList<>();
         if (ctx.argList() != null) {
@@ -324,6 +463,10 @@ public class EvalVisitor extends MinJBaseVisitor<Object> {
                 args.add(visit(e));
             }
         }
+        // user-defined functions shadow the native builtins
+        if (decl == null) {
+            return callBuiltin(name, args, ctx.getStart().getLine());
+        }
         return invokeMethod(name, decl, args);
     }
 
@@ -355,17 +498,17 @@ public class EvalVisitor extends MinJBaseVisitor<Object> {
 
     @Override
     public Object visitIntLiteral(MinJParser.IntLiteralContext ctx) {
-        return Integer.parseInt(ctx.INT().getText());
+        return boxed(Integer.parseInt(ctx.INT().getText()));
     }
 
     @Override
     public Object visitFloatLiteral(MinJParser.FloatLiteralContext ctx) {
-        return Float.parseFloat(ctx.FLOAT_LIT().getText().replaceAll("[fF]$", ""));
+        return boxed(Float.parseFloat(ctx.FLOAT_LIT().getText().replaceAll("[fF]$", "")));
     }
 
     @Override
     public Object visitDoubleLiteral(MinJParser.DoubleLiteralContext ctx) {
-        return Double.parseDouble(ctx.DOUBLE_LIT().getText());
+        return boxed(Double.parseDouble(ctx.DOUBLE_LIT().getText()));
     }
 
     @Override
@@ -404,6 +547,7 @@ public class EvalVisitor extends MinJBaseVisitor<Object> {
         for (var e : ctx.expr()) {
             result.add(visit(e));
         }
+        if (metrics != null) metrics.allocation();
         return result;
     }
 
@@ -503,6 +647,17 @@ public class EvalVisitor extends MinJBaseVisitor<Object> {
         throw new IllegalStateException("Undefined: " + name);
     }
 
+    /**
+     * Reports a freshly boxed value to the profiler, if any, and returns it.
+     * The only non-numeric values passed here are concatenated strings, which
+     * also count as allocations, like in {@link BytecodeVM}.
+     */
+    private Object boxed(Object v) {
+        if (profiler != null) profiler.boxed(v);
+        if (metrics != null && v instanceof String) metrics.allocation();
+        return v;
+    }
+
     /**
      * Reads one line of user input, prompting with {@code prompt} and a “> ” marker.
      */
@@ -539,7 +694,7 @@ public class EvalVisitor extends MinJBaseVisitor<Object> {
      * Sets up a fresh local frame, binds 'this' (if non-null), parameters,
      * runs the method body, captures any return, and restores the caller frame.
      *
-     * @param name     method name
+     * @param name     method name, unqualified
      * @param decl     its MethodDeclContext
      * @param args     evaluated arguments
      * @param receiver the Obj on which to call it, or null for a global method
@@ -548,6 +703,7 @@ public class EvalVisitor extends MinJBaseVisitor<Object> {
                                 MinJParser.MethodDeclContext decl,
                                 List<Object> args,
                                 Obj receiver) {
+        if (budget != null) budget.poll(decl.getStart().getLine());
         var oldEnv = env;
         var oldImm = immutable;
         var wasIn = inMethod;
@@ -570,23 +726,53 @@ public class EvalVisitor extends MinJBaseVisitor<Object> {
             }
         }
 
+        if (profiler != null) profiler.enterFunction(qualifiedName(name, receiver));
+        if (metrics != null) metrics.call();
+        InterpreterEvents.Invoke event = new InterpreterEvents.Invoke();
+        event.begin();
         Object result = null;
         try {
             visit(decl.block());
         } catch (ReturnSignal rs) {
+            if (metrics != null) metrics.returned();
             result = switch (rs.values.size()) {
                 case 0 -> null;
                 case 1 -> rs.values.getFirst();
                 default -> rs.values;
             };
+        } finally {
+            // restore the caller's frame even if the body threw, so a reused visitor stays usable
+            env = oldEnv;
+            immutable = oldImm;
+            inMethod = wasIn;
+            if (profiler != null) profiler.exitFunction();
+            if (event.shouldCommit()) {
+                event.function = qualifiedName(name, receiver);
+                event.arguments = args.size();
+                event.commit();
+            }
         }
+        return result;
+    }
 
-        env = oldEnv;
-        immutable = oldImm;
-        inMethod = wasIn;
+    /**
+     * Runs a native builtin and charges its work to the budget afterwards, so
+     * a long call over a big list is followed by a clock check.
+     */
+    private Object callBuiltin(String name, List<Object> args, int line) {
+        if (metrics != null) metrics.call();
+        Object result = Builtins.call(name, args);
+        if (budget != null) budget.charge(Builtins.cost(args), line);
         return result;
     }
 
+    /**
+     * {@code Class.method} for instance methods, the plain name otherwise.
+     * Only built when a profiler or flight recording asks for it.
+     */
+    private static String qualifiedName(String name, Obj receiver) {
+        return receiver == null ? name : receiver.def.name + "." + name;
+    }
 
     private Cell initForLoop(MinJParser.ForStmtContext ctx) {
         if (ctx.varDecl() != null) {
@@ -676,8 +862,13 @@ public class EvalVisitor extends MinJBaseVisitor<Object> {
      * Represents a class: its fields and methods.
      */
     private static class ClassDef {
+        final String name;
         final Map<String, Cell> fields = new HashMap<>();
         final Map<String, MinJParser.MethodDeclContext> methods = new HashMap<>();
+
+        ClassDef(String name) {
+            this.name = name;
+        }
     }
 
     /**
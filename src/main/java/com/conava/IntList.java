@@ -0,0 +1,44 @@
+package com.conava;
+
+import java.util.AbstractList;
+import java.util.RandomAccess;
+
+/**
+ * Immutable MinJ list backed by an {@code int[]}.
+ * <p>
+ * Returned by the integral {@link Builtins}, so a chained call such as
+ * {@code sum(scale(xs, 2))} hands the kernel the backing array instead of
+ * unboxing a list of {@code Integer}s again. To scripts and hosts it is an
+ * ordinary read-only {@code List}: elements box on {@link #get}, and
+ * {@code equals}, {@code hashCode} and {@code toString} match an
+ * {@code ArrayList} with the same elements.
+ * </p>
+ */
+final class IntList extends AbstractList<Object> implements RandomAccess {
+
+    private final int[] values;
+
+    /**
+     * Wraps {@code values} without copying; the caller must not modify it afterwards.
+     */
+    IntList(int[] values) {
+        this.values = values;
+    }
+
+    /**
+     * The backing array. Callers must treat it as read-only.
+     */
+    int[] array() {
+        return values;
+    }
+
+    @Override
+    public Object get(int index) {
+        return values[index];
+    }
+
+    @Override
+    public int size() {
+        return values.length;
+    }
+}
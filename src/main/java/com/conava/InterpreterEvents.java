@@ -0,0 +1,70 @@
+package com.conava;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Java Flight Recorder events emitted by the interpreter.
+ * <p>
+ * The events show up under the "MinJ" category next to the JVM's own GC and
+ * JIT events. When no recording is running JFR leaves them disabled and
+ * {@code shouldCommit()} is a cheap flag check.
+ * </p>
+ */
+final class InterpreterEvents {
+
+    private InterpreterEvents() {
+    }
+
+    /**
+     * One front-end phase ({@code lex} or {@code parse}) over a source file.
+     */
+    @Name("com.conava.Parse")
+    @Label("MinJ Parse Phase")
+    @Category("MinJ")
+    @Description("Lexing or parsing of a MinJ source file")
+    @StackTrace(false)
+    static final class Parse extends Event {
+        @Label("Phase")
+        String phase;
+
+        @Label("Source")
+        String source;
+
+        @Label("Tokens")
+        int tokens;
+    }
+
+    /**
+     * Execution of one MinJ function or method, from entry to return.
+     */
+    @Name("com.conava.Invoke")
+    @Label("MinJ Function Invocation")
+    @Category("MinJ")
+    @Description("A call of a MinJ func or method through invokeMethod")
+    @StackTrace(false)
+    static final class Invoke extends Event {
+        @Label("Function")
+        String function;
+
+        @Label("Arguments")
+        int arguments;
+    }
+
+    /**
+     * Instantiation of a MinJ class with {@code new}.
+     */
+    @Name("com.conava.NewObject")
+    @Label("MinJ Object Creation")
+    @Category("MinJ")
+    @Description("An object created by a new expression")
+    @StackTrace(false)
+    static final class NewObject extends Event {
+        @Label("Class")
+        String className;
+    }
+}
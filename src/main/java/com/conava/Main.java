@@ -1,11 +1,25 @@
 package com.conava;
 
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Path;
 import java.nio.file.Files;
+import java.time.Duration;
+import java.util.zip.CRC32;
 
+import org.antlr.v4.runtime.BaseErrorListener;
 import org.antlr.v4.runtime.CharStream;
 import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.CommonTokenFactory;
 import org.antlr.v4.runtime.CommonTokenStream;
+import org.antlr.v4.runtime.RecognitionException;
+import org.antlr.v4.runtime.Recognizer;
+import org.antlr.v4.runtime.Token;
+import org.antlr.v4.runtime.TokenStream;
+import org.antlr.v4.runtime.UnbufferedCharStream;
+import org.antlr.v4.runtime.UnbufferedTokenStream;
+import org.antlr.v4.runtime.misc.ParseCancellationException;
 import org.antlr.v4.runtime.tree.ParseTree;
 import com.conava.MinJLexer;
 import com.conava.MinJParser;
@@ -15,25 +29,39 @@ import com.conava.MinJParser;
  * <p>
  * Reads a source file, lexes and parses it with ANTLR,
  * then applies EvalVisitor to execute the program.
+ * With {@code --profile} a hot-spot report is printed to stderr
+ * and collapsed stacks are written for flame-graph rendering;
+ * {@code --metrics-out} exports runtime counters as JSON on exit;
+ * {@code --fuel} and {@code --timeout} abort runaway programs;
+ * {@code --engine=vm} runs the program on the bytecode VM instead;
+ * {@code --stream} executes huge files one declaration at a time.
  * </p>
  */
 public class Main {
-    private static final String USAGE = "Usage: java -jar minjc.jar <source-file.mj>";
+    private static final String USAGE =
+            "Usage: java -jar minjc.jar [--profile] [--profile-out=<file>] [--metrics-out=<file>]"
+                    + " [--fuel=<n>] [--timeout=<ms>] [--engine=tree|vm] [--cache] [--stream] <source-file.mj>";
+
+    /**
+     * Default file for collapsed profiler stacks.
+     */
+    private static final String DEFAULT_PROFILE_OUT = "minj-profile.collapsed";
 
     /**
      * Validates arguments and dispatches parsing + execution.
      *
-     * @param args single argument pointing to a MinJ source file
+     * @param args optional flags followed by a MinJ source file
      * @throws Exception if file I/O or parsing errors occur
      */
     public static void main(String[] args) throws Exception {
-        // Ensure exactly one argument is provided
-        if (args.length != 1) {
+        // Ensure exactly one source file and only known flags are provided
+        Options options = Options.parse(args);
+        if (options == null) {
             System.err.println(USAGE);
             System.exit(1);
         }
 
-        Path sourcePath = Path.of(args[0]);
+        Path sourcePath = options.source;
 
         // Check that the file exists and is readable
         if (!Files.isReadable(sourcePath)) {
@@ -42,7 +70,15 @@ public class Main {
         }
 
         // Perform lexing, parsing and visiting in a helper method
-        parseAndExecute(sourcePath);
+        try {
+            parseAndExecute(sourcePath, options);
+        } catch (BudgetExceededException e) {
+            System.err.printf("Execution aborted: %s%n", e.getMessage());
+            System.exit(3);
+        } catch (ParseCancellationException e) {
+            System.err.printf("Syntax error: %s%n", e.getMessage());
+            System.exit(4);
+        }
     }
 
     /**
@@ -50,22 +86,263 @@ public class Main {
      * and invokes EvalVisitor to evaluate it.
      *
      * @param sourcePath path to the MinJ source file
+     * @param options    parsed command-line flags
      * @throws Exception if file I/O or ANTLR errors occur
      */
-    private static void parseAndExecute(Path sourcePath) throws Exception {
-        // Read entire file into ANTLR CharStream, preserving Unicode correctly
-        CharStream input = CharStreams.fromPath(sourcePath);
+    private static void parseAndExecute(Path sourcePath, Options options) throws Exception {
+        if (options.vm) {
+            compileAndRun(sourcePath, options);
+            return;
+        }
+
+        // Walk the parse tree to evaluate statements and expressions
+        EvalVisitor visitor = new EvalVisitor();
+        Profiler profiler = options.profile ? new Profiler() : null;
+        Metrics metrics = options.metricsOut != null ? new Metrics() : null;
+        visitor.setProfiler(profiler);
+        visitor.setMetrics(metrics);
+        try {
+            if (options.stream) {
+                // parsing and execution interleave, so the budget covers both
+                visitor.setBudget(options.budget());
+                streamAndExecute(sourcePath, visitor);
+            } else {
+                // Read entire file into ANTLR CharStream, preserving Unicode correctly
+                ParseTree tree = parse(CharStreams.fromPath(sourcePath), sourcePath);
+                // the timeout starts once parsing is done, as with --engine=vm
+                visitor.setBudget(options.budget());
+                visitor.visit(tree);
+            }
+        } finally {
+            if (metrics != null) {
+                Files.writeString(options.metricsOut, metrics.snapshot().toJson());
+            }
+            if (profiler != null) {
+                profiler.finish();
+                profiler.printTable(System.err);
+                profiler.writeCollapsed(options.profileOut);
+                System.err.printf("Collapsed stacks written to %s%n", options.profileOut);
+            }
+        }
+    }
 
+    /**
+     * Compiles the file to bytecode, or loads it from the {@code .mjc} cache
+     * next to the source when {@code --cache} is set and the source is
+     * unchanged, then runs it on the {@link BytecodeVM}.
+     *
+     * @param sourcePath path to the MinJ source file
+     * @param options    parsed command-line flags
+     * @throws Exception if file I/O or ANTLR errors occur
+     */
+    private static void compileAndRun(Path sourcePath, Options options) throws Exception {
+        byte[] source = Files.readAllBytes(sourcePath);
+        CRC32 crc = new CRC32();
+        crc.update(source);
+        long sourceHash = crc.getValue();
+        Path cachePath = Path.of(sourcePath + "c");
+        Metrics metrics = options.metricsOut != null ? new Metrics() : null;
+
+        Bytecode program = options.cache ? Bytecode.load(cachePath, sourceHash) : null;
+        if (program != null) {
+            if (metrics != null) metrics.cacheHit();
+        } else {
+            CharStream input = CharStreams.fromString(new String(source, StandardCharsets.UTF_8), sourcePath.toString());
+            program = new BytecodeCompiler().compile(parse(input, sourcePath));
+            if (options.cache) {
+                // the cache is best-effort: a read-only directory or full disk must not fail the run
+                try {
+                    program.save(cachePath, sourceHash);
+                } catch (IOException e) {
+                    System.err.printf("Warning: cannot write bytecode cache %s: %s%n", cachePath, e);
+                }
+            }
+        }
+
+        BytecodeVM vm = new BytecodeVM(program);
+        vm.setMetrics(metrics);
+        vm.setBudget(options.budget());
+        try {
+            vm.run();
+        } finally {
+            if (metrics != null) {
+                Files.writeString(options.metricsOut, metrics.snapshot().toJson());
+            }
+        }
+    }
+
+    /**
+     * Lexes and parses a whole program, emitting a flight-recorder event per phase.
+     *
+     * @param input      source characters
+     * @param sourcePath path reported in the events
+     * @return the program parse tree
+     */
+    private static MinJParser.ProgramContext parse(CharStream input, Path sourcePath) {
         // Convert characters into tokens according to grammar rules
+        InterpreterEvents.Parse lexEvent = new InterpreterEvents.Parse();
+        lexEvent.begin();
         MinJLexer lexer = new MinJLexer(input);
         CommonTokenStream tokens = new CommonTokenStream(lexer);
+        tokens.fill();
+        commitParseEvent(lexEvent, "lex", sourcePath, tokens.size());
 
         // Build a parse tree starting at the 'program' rule
+        InterpreterEvents.Parse parseEvent = new InterpreterEvents.Parse();
+        parseEvent.begin();
         MinJParser parser = new MinJParser(tokens);
-        ParseTree tree = parser.program();
+        MinJParser.ProgramContext tree = parser.program();
+        commitParseEvent(parseEvent, "parse", sourcePath, tokens.size());
+        return tree;
+    }
 
-        // Walk the parse tree to evaluate statements and expressions
-        EvalVisitor visitor = new EvalVisitor();
-        visitor.visit(tree);
+    /**
+     * Lexes, parses and executes one top-level declaration at a time.
+     * <p>
+     * Characters and tokens flow through unbuffered streams and each
+     * declaration's parse tree is dropped once it has run, so memory is
+     * bounded by the largest single declaration (plus the functions and
+     * classes the program keeps) instead of by the file size.
+     * </p>
+     * <p>
+     * Earlier declarations have already run when a later one is parsed, so
+     * error recovery could only execute a guess at what was meant: the first
+     * syntax error aborts with a {@link ParseCancellationException}, and so
+     * does a declaration that is not followed by a line break.
+     * </p>
+     *
+     * @param sourcePath path to the MinJ source file
+     * @param visitor    interpreter that executes each declaration
+     * @throws IOException if the file cannot be read
+     */
+    private static void streamAndExecute(Path sourcePath, EvalVisitor visitor) throws IOException {
+        try (Reader reader = Files.newBufferedReader(sourcePath, StandardCharsets.UTF_8)) {
+            MinJLexer lexer = new MinJLexer(new UnbufferedCharStream(reader));
+            // tokens must copy their text: consumed characters are discarded
+            lexer.setTokenFactory(new CommonTokenFactory(true));
+            TokenStream tokens = new UnbufferedTokenStream<>(lexer);
+            MinJParser parser = new MinJParser(tokens);
+            lexer.removeErrorListeners();
+            lexer.addErrorListener(FAIL_FAST);
+            parser.removeErrorListeners();
+            parser.addErrorListener(FAIL_FAST);
+
+            while (tokens.LA(1) != Token.EOF) {
+                if (tokens.LA(1) == MinJParser.NEWLINE) {
+                    tokens.consume();
+                    continue;
+                }
+                InterpreterEvents.Parse event = new InterpreterEvents.Parse();
+                event.begin();
+                MinJParser.TopLevelDeclContext decl = parser.topLevelDecl();
+                // like the program rule, a declaration must end its line
+                Token next = tokens.LT(1);
+                if (next.getType() != MinJParser.NEWLINE && next.getType() != Token.EOF) {
+                    throw syntaxAbort(next.getLine(), next.getCharPositionInLine(),
+                            "extraneous input '" + next.getText() + "' expecting NEWLINE");
+                }
+                commitParseEvent(event, "stream", sourcePath,
+                        decl.getStop().getTokenIndex() - decl.getStart().getTokenIndex() + 1);
+                visitor.visit(decl);
+            }
+        }
+    }
+
+    /**
+     * Aborts streaming on the first lexer or parser error instead of recovering.
+     */
+    private static final BaseErrorListener FAIL_FAST = new BaseErrorListener() {
+        @Override
+        public void syntaxError(Recognizer<?, ?> recognizer, Object offendingSymbol,
+                                int line, int charPositionInLine, String msg, RecognitionException e) {
+            throw syntaxAbort(line, charPositionInLine, msg);
+        }
+    };
+
+    private static ParseCancellationException syntaxAbort(int line, int column, String msg) {
+        return new ParseCancellationException("line " + line + ":" + column + " " + msg);
+    }
+
+    /**
+     * Commits a front-end phase event if a flight recording wants it.
+     */
+    private static void commitParseEvent(InterpreterEvents.Parse event, String phase, Path source, int tokens) {
+        if (event.shouldCommit()) {
+            event.phase = phase;
+            event.source = source.toString();
+            event.tokens = tokens;
+            event.commit();
+        }
+    }
+
+    /**
+     * Command-line flags accepted in front of the source file.
+     */
+    private static final class Options {
+        Path source;
+        boolean profile;
+        Path profileOut = Path.of(DEFAULT_PROFILE_OUT);
+        Path metricsOut;
+        long fuel;
+        Duration timeout;
+        boolean vm;
+        boolean cache;
+        boolean stream;
+
+        /**
+         * Parses {@code args}, returning null if they are malformed.
+         */
+        static Options parse(String[] args) {
+            Options o = new Options();
+            for (String arg : args) {
+                if (arg.equals("--profile")) {
+                    o.profile = true;
+                } else if (arg.startsWith("--profile-out=")) {
+                    o.profile = true;
+                    o.profileOut = Path.of(arg.substring("--profile-out=".length()));
+                } else if (arg.startsWith("--metrics-out=")) {
+                    o.metricsOut = Path.of(arg.substring("--metrics-out=".length()));
+                } else if (arg.startsWith("--fuel=")) {
+                    o.fuel = positive(arg.substring("--fuel=".length()));
+                    if (o.fuel <= 0) return null;
+                } else if (arg.startsWith("--timeout=")) {
+                    long ms = positive(arg.substring("--timeout=".length()));
+                    if (ms <= 0) return null;
+                    o.timeout = Duration.ofMillis(ms);
+                } else if (arg.equals("--engine=vm") || arg.equals("--engine=tree")) {
+                    o.vm = arg.equals("--engine=vm");
+                } else if (arg.equals("--cache")) {
+                    o.cache = true;
+                } else if (arg.equals("--stream")) {
+                    o.stream = true;
+                } else if (arg.startsWith("--") || o.source != null) {
+                    return null;
+                } else {
+                    o.source = Path.of(arg);
+                }
+            }
+            // the profiler and streaming execution are tree-walker only
+            if (o.source == null || (o.vm && (o.profile || o.stream))) return null;
+            return o;
+        }
+
+        /**
+         * Returns a fresh budget for the requested limits, or null if there are none.
+         */
+        Budget budget() {
+            return fuel > 0 || timeout != null ? new Budget(fuel, timeout) : null;
+        }
+
+        /**
+         * Parses a positive number, returning -1 if {@code s} is not one.
+         */
+        private static long positive(String s) {
+            try {
+                long n = Long.parseLong(s);
+                return n > 0 ? n : -1;
+            } catch (NumberFormatException e) {
+                return -1;
+            }
+        }
     }
 }
\ No newline at end of file
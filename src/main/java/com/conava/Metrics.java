@@ -0,0 +1,95 @@
+package com.conava;
+
+/**
+ * Runtime counters of the interpreter.
+ * <p>
+ * Attach an instance with {@link EvalVisitor#setMetrics} and read it at any
+ * time with {@link #snapshot()}. The interpreter is single-threaded, so the
+ * counters are plain fields; a detached visitor does not touch them at all.
+ * </p>
+ * <p>
+ * {@link BytecodeVM} reports the same events, so a snapshot means the same
+ * on both engines. In particular, allocations are the values a MinJ program
+ * creates ({@code new} objects, list literals and concatenated strings), not
+ * the boxes an engine happens to allocate internally; use
+ * {@code --profile} for boxing on the tree walker. A cache hit is a program
+ * loaded from the {@code .mjc} bytecode cache instead of being compiled.
+ * </p>
+ */
+public final class Metrics {
+
+    private long calls;
+    private long returns;
+    private long allocations;
+    private long cacheHits;
+    private long loopIterations;
+
+    // === Recording ===
+
+    /**
+     * A user function, method or builtin was called.
+     */
+    void call() {
+        calls++;
+    }
+
+    /**
+     * A {@code return} statement completed a call.
+     */
+    void returned() {
+        returns++;
+    }
+
+    /**
+     * The program created an object, a list or a concatenated string.
+     */
+    void allocation() {
+        allocations++;
+    }
+
+    /**
+     * A compiled program was reused from the bytecode cache.
+     */
+    void cacheHit() {
+        cacheHits++;
+    }
+
+    /**
+     * One iteration of a {@code while}, {@code for} or {@code foreach} loop finished.
+     */
+    void loopIteration() {
+        loopIterations++;
+    }
+
+    // === Reading ===
+
+    /**
+     * Returns an immutable copy of the current counter values.
+     */
+    public Snapshot snapshot() {
+        return new Snapshot(calls, returns, allocations, cacheHits, loopIterations);
+    }
+
+    /**
+     * Point-in-time values of all counters.
+     */
+    public record Snapshot(long calls,
+                           long returns,
+                           long allocations,
+                           long cacheHits,
+                           long loopIterations) {
+
+        /**
+         * Renders the snapshot as a flat JSON object.
+         */
+        public String toJson() {
+            return "{\n"
+                    + "  \"calls\": " + calls + ",\n"
+                    + "  \"returns\": " + returns + ",\n"
+                    + "  \"allocations\": " + allocations + ",\n"
+                    + "  \"cacheHits\": " + cacheHits + ",\n"
+                    + "  \"loopIterations\": " + loopIterations + "\n"
+                    + "}\n";
+        }
+    }
+}
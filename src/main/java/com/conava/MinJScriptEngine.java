@@ -0,0 +1,308 @@
+package com.conava;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.Reader;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import javax.script.AbstractScriptEngine;
+import javax.script.Bindings;
+import javax.script.Compilable;
+import javax.script.CompiledScript;
+import javax.script.Invocable;
+import javax.script.ScriptContext;
+import javax.script.ScriptEngine;
+import javax.script.ScriptEngineFactory;
+import javax.script.ScriptException;
+import javax.script.SimpleBindings;
+
+import org.antlr.v4.runtime.BaseErrorListener;
+import org.antlr.v4.runtime.CharStream;
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.CommonTokenStream;
+import org.antlr.v4.runtime.RecognitionException;
+import org.antlr.v4.runtime.Recognizer;
+import org.antlr.v4.runtime.misc.ParseCancellationException;
+
+/**
+ * JSR-223 engine for embedding MinJ in Java applications.
+ * <p>
+ * {@link #compile} parses a script once into a reusable {@link CompiledScript};
+ * each evaluation then only builds a fresh {@link EvalVisitor} over the shared,
+ * read-only parse tree, so one compiled script can be evaluated concurrently
+ * with different {@link Bindings}. Bindings are exposed to the script as
+ * dynamic globals, and top-level variables are written back to the engine
+ * scope after the run. The value of the last top-level expression statement
+ * is returned.
+ * </p>
+ * <p>
+ * {@link Invocable} calls go to the functions defined by the most recent
+ * evaluation <em>on the calling thread</em>. A thread that evaluates a script
+ * with its own bindings and then invokes one of its functions therefore never
+ * sees another thread's bindings or shares an interpreter with it.
+ * </p>
+ * <p>
+ * Untrusted scripts can be limited per evaluation through the context
+ * attributes {@value #FUEL} (a number) and {@value #TIMEOUT} (a
+ * {@link Duration} or milliseconds). Every evaluation and every
+ * {@link Invocable} call gets a fresh {@link Budget} from them (for Invocable
+ * calls, from the engine's default context); an exhausted budget surfaces as
+ * a {@link ScriptException} caused by {@link BudgetExceededException}.
+ * </p>
+ */
+public class MinJScriptEngine extends AbstractScriptEngine implements Compilable, Invocable {
+
+    /**
+     * Context attribute holding the fuel limit of each evaluation.
+     */
+    public static final String FUEL = "minj.fuel";
+
+    /**
+     * Context attribute holding the wall-clock limit of each evaluation.
+     */
+    public static final String TIMEOUT = "minj.timeout";
+
+    private final ScriptEngineFactory factory;
+
+    /**
+     * Interpreter state of the calling thread's most recent evaluation, used by {@link Invocable}.
+     */
+    private final ThreadLocal<EvalVisitor> lastVisitor = new ThreadLocal<>();
+
+    MinJScriptEngine(ScriptEngineFactory factory) {
+        this.factory = factory;
+    }
+
+    // === ScriptEngine ===
+
+    @Override
+    public Object eval(String script, ScriptContext context) throws ScriptException {
+        return compile(script).eval(context);
+    }
+
+    @Override
+    public Object eval(Reader reader, ScriptContext context) throws ScriptException {
+        return compile(reader).eval(context);
+    }
+
+    @Override
+    public Bindings createBindings() {
+        return new SimpleBindings();
+    }
+
+    @Override
+    public ScriptEngineFactory getFactory() {
+        return factory;
+    }
+
+    // === Compilable ===
+
+    @Override
+    public CompiledScript compile(String script) throws ScriptException {
+        return new Compiled(parse(CharStreams.fromString(script, sourceName())));
+    }
+
+    @Override
+    public CompiledScript compile(Reader script) throws ScriptException {
+        try {
+            return new Compiled(parse(CharStreams.fromReader(script, sourceName())));
+        } catch (IOException e) {
+            throw new ScriptException(e);
+        }
+    }
+
+    // === Invocable ===
+
+    @Override
+    public Object invokeFunction(String name, Object... args) throws ScriptException, NoSuchMethodException {
+        EvalVisitor visitor = lastVisitor.get();
+        if (visitor == null || !visitor.hasFunction(name)) {
+            throw new NoSuchMethodException(name);
+        }
+        visitor.setBudget(budgetFor(getContext()));
+        try {
+            return visitor.callFunction(name, argList(args));
+        } catch (RuntimeException e) {
+            throw new ScriptException(e);
+        }
+    }
+
+    @Override
+    public Object invokeMethod(Object thiz, String name, Object... args) throws ScriptException, NoSuchMethodException {
+        EvalVisitor visitor = lastVisitor.get();
+        if (visitor == null || !visitor.hasMethod(thiz, name)) {
+            throw new NoSuchMethodException(name);
+        }
+        visitor.setBudget(budgetFor(getContext()));
+        try {
+            return visitor.callMethod(thiz, name, argList(args));
+        } catch (RuntimeException e) {
+            throw new ScriptException(e);
+        }
+    }
+
+    @Override
+    public <T> T getInterface(Class<T> clasz) {
+        return proxy(clasz, null);
+    }
+
+    @Override
+    public <T> T getInterface(Object thiz, Class<T> clasz) {
+        if (thiz == null) throw new IllegalArgumentException("thiz is null");
+        return proxy(clasz, thiz);
+    }
+
+    // === Helpers ===
+
+    /**
+     * Parses a whole program, turning the first syntax error into a {@link ScriptException}.
+     */
+    private static MinJParser.ProgramContext parse(CharStream input) throws ScriptException {
+        MinJLexer lexer = new MinJLexer(input);
+        MinJParser parser = new MinJParser(new CommonTokenStream(lexer));
+        BaseErrorListener failFast = new BaseErrorListener() {
+            @Override
+            public void syntaxError(Recognizer<?, ?> recognizer, Object offendingSymbol,
+                                    int line, int charPositionInLine, String msg, RecognitionException e) {
+                throw new SyntaxError(msg, line, charPositionInLine);
+            }
+        };
+        lexer.removeErrorListeners();
+        lexer.addErrorListener(failFast);
+        parser.removeErrorListeners();
+        parser.addErrorListener(failFast);
+        try {
+            return parser.program();
+        } catch (SyntaxError e) {
+            throw new ScriptException(e.getMessage(), input.getSourceName(), e.line, e.column);
+        }
+    }
+
+    private String sourceName() {
+        Object name = get(ScriptEngine.FILENAME);
+        return name != null ? name.toString() : CharStream.UNKNOWN_SOURCE_NAME;
+    }
+
+    /**
+     * Builds a fresh budget from the {@link #FUEL} and {@link #TIMEOUT} attributes, or null if neither is set.
+     */
+    private static Budget budgetFor(ScriptContext context) {
+        Object fuel = context.getAttribute(FUEL);
+        Object timeout = context.getAttribute(TIMEOUT);
+        if (fuel == null && timeout == null) return null;
+        return new Budget(
+                fuel instanceof Number n ? n.longValue() : 0,
+                timeout instanceof Duration d ? d
+                        : timeout instanceof Number n ? Duration.ofMillis(n.longValue())
+                        : null);
+    }
+
+    private static List<Object> argList(Object[] args) {
+        return args == null ? List.of() : Arrays.asList(args);
+    }
+
+    /**
+     * Implements {@code clasz} by forwarding every call to a script function or,
+     * if {@code thiz} is given, to a method of that MinJ object. Returns null if
+     * the script does not define all of the interface's methods.
+     */
+    private <T> T proxy(Class<T> clasz, Object thiz) {
+        if (clasz == null || !clasz.isInterface()) {
+            throw new IllegalArgumentException("Not an interface: " + clasz);
+        }
+        EvalVisitor visitor = lastVisitor.get();
+        if (visitor == null) return null;
+        for (Method m : clasz.getMethods()) {
+            boolean defined = thiz == null
+                    ? visitor.hasFunction(m.getName())
+                    : visitor.hasMethod(thiz, m.getName());
+            if (!defined) return null;
+        }
+        Object impl = Proxy.newProxyInstance(clasz.getClassLoader(), new Class<?>[]{clasz},
+                (proxy, method, args) -> {
+                    if (method.getDeclaringClass() == Object.class) {
+                        return switch (method.getName()) {
+                            case "equals" -> proxy == args[0];
+                            case "hashCode" -> System.identityHashCode(proxy);
+                            default -> clasz.getName() + "@MinJ";
+                        };
+                    }
+                    return thiz == null
+                            ? invokeFunction(method.getName(), args)
+                            : invokeMethod(thiz, method.getName(), args);
+                });
+        return clasz.cast(impl);
+    }
+
+    // === Nested Types ===
+
+    /**
+     * First syntax error of a script; aborts the parse with its position.
+     */
+    private static final class SyntaxError extends ParseCancellationException {
+        final int line;
+        final int column;
+
+        SyntaxError(String message, int line, int column) {
+            super(message);
+            this.line = line;
+            this.column = column;
+        }
+    }
+
+    /**
+     * A parsed MinJ program that can be evaluated any number of times.
+     */
+    private final class Compiled extends CompiledScript {
+        private final MinJParser.ProgramContext program;
+
+        Compiled(MinJParser.ProgramContext program) {
+            this.program = program;
+        }
+
+        @Override
+        public Object eval(ScriptContext context) throws ScriptException {
+            EvalVisitor visitor = new EvalVisitor();
+            visitor.setOut(new PrintWriter(context.getWriter(), true));
+            visitor.setBudget(budgetFor(context));
+            defineAll(visitor, context.getBindings(ScriptContext.GLOBAL_SCOPE));
+            defineAll(visitor, context.getBindings(ScriptContext.ENGINE_SCOPE));
+
+            Object result = null;
+            try {
+                for (MinJParser.TopLevelDeclContext tld : program.topLevelDecl()) {
+                    Object value = visitor.visit(tld);
+                    if (tld.statement() != null && tld.statement().exprStmt() != null) {
+                        result = value;
+                    }
+                }
+            } catch (RuntimeException e) {
+                throw new ScriptException(e);
+            }
+
+            Bindings engineScope = context.getBindings(ScriptContext.ENGINE_SCOPE);
+            if (engineScope != null) {
+                engineScope.putAll(visitor.topLevelVariables());
+            }
+            lastVisitor.set(visitor);
+            return result;
+        }
+
+        @Override
+        public ScriptEngine getEngine() {
+            return MinJScriptEngine.this;
+        }
+
+        private void defineAll(EvalVisitor visitor, Bindings bindings) {
+            if (bindings == null) return;
+            for (Map.Entry<String, Object> e : bindings.entrySet()) {
+                visitor.defineGlobal(e.getKey(), e.getValue());
+            }
+        }
+    }
+}
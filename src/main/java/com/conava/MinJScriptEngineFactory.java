@@ -0,0 +1,87 @@
+package com.conava;
+
+import java.util.List;
+
+import javax.script.ScriptEngine;
+import javax.script.ScriptEngineFactory;
+
+/**
+ * Registers MinJ with {@code javax.script.ScriptEngineManager} under the
+ * names {@code minj}/{@code MinJ}, the extension {@code mj} and the MIME
+ * type {@code application/x-minj}.
+ */
+public class MinJScriptEngineFactory implements ScriptEngineFactory {
+
+    private static final String NAME = "MinJ";
+
+    @Override
+    public String getEngineName() {
+        return NAME + " Interpreter";
+    }
+
+    @Override
+    public String getEngineVersion() {
+        String v = MinJScriptEngineFactory.class.getPackage().getImplementationVersion();
+        return v != null ? v : "dev";
+    }
+
+    @Override
+    public List<String> getExtensions() {
+        return List.of("mj");
+    }
+
+    @Override
+    public List<String> getMimeTypes() {
+        return List.of("application/x-minj", "text/x-minj");
+    }
+
+    @Override
+    public List<String> getNames() {
+        return List.of("minj", "MinJ");
+    }
+
+    @Override
+    public String getLanguageName() {
+        return NAME;
+    }
+
+    @Override
+    public String getLanguageVersion() {
+        return getEngineVersion();
+    }
+
+    @Override
+    public Object getParameter(String key) {
+        return switch (key) {
+            case ScriptEngine.ENGINE -> getEngineName();
+            case ScriptEngine.ENGINE_VERSION -> getEngineVersion();
+            case ScriptEngine.NAME -> getNames().getFirst();
+            case ScriptEngine.LANGUAGE -> getLanguageName();
+            case ScriptEngine.LANGUAGE_VERSION -> getLanguageVersion();
+            // every evaluation gets its own interpreter and Invocable calls use the calling
+            // thread's latest one; only shared Bindings are visible across threads
+            case "THREADING" -> "MULTITHREADED";
+            default -> null;
+        };
+    }
+
+    @Override
+    public String getMethodCallSyntax(String obj, String m, String... args) {
+        return obj + "." + m + "(" + String.join(", ", args) + ")";
+    }
+
+    @Override
+    public String getOutputStatement(String toDisplay) {
+        return "print \"" + toDisplay + "\"";
+    }
+
+    @Override
+    public String getProgram(String... statements) {
+        return String.join("\n", statements) + "\n";
+    }
+
+    @Override
+    public ScriptEngine getScriptEngine() {
+        return new MinJScriptEngine(this);
+    }
+}
@@ -0,0 +1,215 @@
+package com.conava;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Collects per-function and per-line hot spots while {@link EvalVisitor} runs.
+ * <p>
+ * The visitor only calls into the profiler when one is attached, so a run
+ * without {@code --profile} pays nothing but a null check. For every function
+ * and source line it records call counts, inclusive and exclusive wall time
+ * and the number of boxed values the interpreter allocated. Function stacks
+ * are additionally folded into the collapsed-stack format understood by
+ * flame-graph renderers ({@code frame;frame;frame nanos}).
+ * </p>
+ */
+final class Profiler {
+
+    /**
+     * Root frame name for top-level code.
+     */
+    private static final String ROOT = "<script>";
+
+    /**
+     * Number of hottest lines printed by {@link #printTable}.
+     */
+    private static final int MAX_LINES = 20;
+
+    private final Map<String, Stat> functions = new HashMap<>();
+    private final Map<Integer, Stat> lines = new HashMap<>();
+    private final Map<String, long[]> collapsed = new HashMap<>();
+
+    private final Deque<Frame> functionStack = new ArrayDeque<>();
+    private final Deque<Frame> lineStack = new ArrayDeque<>();
+
+    Profiler() {
+        functionStack.push(new Frame(stat(ROOT), ROOT, System.nanoTime()));
+    }
+
+    // === Recording ===
+
+    /**
+     * Called on entry to a MinJ function or method.
+     */
+    void enterFunction(String name) {
+        Frame parent = functionStack.peek();
+        functionStack.push(new Frame(stat(name), parent.path + ";" + name, System.nanoTime()));
+    }
+
+    /**
+     * Called when the innermost function returns, normally or by exception.
+     */
+    void exitFunction() {
+        Frame f = functionStack.pop();
+        long elapsed = close(f);
+        collapsed.computeIfAbsent(f.path, k -> new long[1])[0] += elapsed - f.childNanos;
+        functionStack.peek().childNanos += elapsed;
+    }
+
+    /**
+     * Called before a statement starting on {@code line} executes.
+     */
+    void enterLine(int line) {
+        lineStack.push(new Frame(lines.computeIfAbsent(line, k -> new Stat()), null, System.nanoTime()));
+    }
+
+    /**
+     * Called after the innermost statement finished, normally or by exception.
+     */
+    void exitLine() {
+        Frame f = lineStack.pop();
+        long elapsed = close(f);
+        Frame parent = lineStack.peek();
+        if (parent != null) parent.childNanos += elapsed;
+    }
+
+    /**
+     * Records a value the interpreter produced by boxing. Values served from
+     * the JDK box caches ({@code Integer.valueOf} in -128..127, booleans, ASCII
+     * chars) are not counted since they did not allocate.
+     */
+    void boxed(Object v) {
+        if (!allocates(v)) return;
+        functionStack.peek().stat.boxed++;
+        Frame line = lineStack.peek();
+        if (line != null) line.stat.boxed++;
+    }
+
+    /**
+     * Closes the root frame; call once after the program finished.
+     */
+    void finish() {
+        while (functionStack.size() > 1) exitFunction();
+        while (!lineStack.isEmpty()) exitLine();
+        Frame root = functionStack.peek();
+        if (root.stat.calls == 0) {
+            long elapsed = close(root);
+            collapsed.computeIfAbsent(root.path, k -> new long[1])[0] += elapsed - root.childNanos;
+        }
+    }
+
+    // === Reporting ===
+
+    /**
+     * Prints the flat hot-spot tables, hottest (by exclusive time) first.
+     */
+    void printTable(PrintStream out) {
+        out.println("=== MinJ profile: functions ===");
+        out.printf("%-32s %10s %12s %12s %10s%n", "function", "calls", "incl(ms)", "excl(ms)", "boxed");
+        for (Map.Entry<String, Stat> e : sorted(functions)) {
+            Stat s = e.getValue();
+            out.printf("%-32s %10d %12.3f %12.3f %10d%n",
+                    e.getKey(), s.calls, millis(s.inclusiveNanos), millis(s.exclusiveNanos), s.boxed);
+        }
+        out.println();
+        out.println("=== MinJ profile: lines ===");
+        out.printf("%-8s %10s %12s %12s %10s%n", "line", "hits", "incl(ms)", "excl(ms)", "boxed");
+        List<Map.Entry<Integer, Stat>> hot = sorted(lines);
+        for (Map.Entry<Integer, Stat> e : hot.subList(0, Math.min(MAX_LINES, hot.size()))) {
+            Stat s = e.getValue();
+            out.printf("%-8d %10d %12.3f %12.3f %10d%n",
+                    e.getKey(), s.calls, millis(s.inclusiveNanos), millis(s.exclusiveNanos), s.boxed);
+        }
+    }
+
+    /**
+     * Writes one {@code stack nanos} line per distinct function stack.
+     */
+    void writeCollapsed(Path file) throws IOException {
+        try (PrintWriter w = new PrintWriter(Files.newBufferedWriter(file))) {
+            collapsed.forEach((path, nanos) -> {
+                if (nanos[0] > 0) w.println(path + " " + nanos[0]);
+            });
+        }
+    }
+
+    // === Helpers ===
+
+    private Stat stat(String name) {
+        return functions.computeIfAbsent(name, k -> new Stat());
+    }
+
+    /**
+     * Ends a frame and charges its time. Inclusive time is only added by the
+     * outermost activation so recursion is not counted twice.
+     */
+    private static long close(Frame f) {
+        long elapsed = System.nanoTime() - f.start;
+        Stat s = f.stat;
+        s.calls++;
+        s.exclusiveNanos += elapsed - f.childNanos;
+        if (--s.active == 0) s.inclusiveNanos += elapsed;
+        return elapsed;
+    }
+
+    /**
+     * Returns true if boxing {@code v} allocated, i.e. it is a number or char
+     * outside the ranges the JDK box caches serve.
+     */
+    static boolean allocates(Object v) {
+        if (v instanceof Integer i) return i < -128 || i > 127;
+        if (v instanceof Character c) return c > 127;
+        return v instanceof Number;
+    }
+
+    private static <K> List<Map.Entry<K, Stat>> sorted(Map<K, Stat> stats) {
+        List<Map.Entry<K, Stat>> list = new ArrayList<>(stats.entrySet());
+        list.sort(Comparator.comparingLong((Map.Entry<K, Stat> e) -> e.getValue().exclusiveNanos).reversed());
+        return list;
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+
+    // === Nested Types ===
+
+    /**
+     * Aggregated counters for one function or line.
+     */
+    private static final class Stat {
+        long calls;
+        long inclusiveNanos;
+        long exclusiveNanos;
+        long boxed;
+        int active;
+    }
+
+    /**
+     * One activation on the function or line stack.
+     */
+    private static final class Frame {
+        final Stat stat;
+        final String path;
+        final long start;
+        long childNanos;
+
+        Frame(Stat stat, String path, long start) {
+            this.stat = stat;
+            this.path = path;
+            this.start = start;
+            stat.active++;
+        }
+    }
+}
@@ -0,0 +1,186 @@
+package com.conava;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * SIMD kernels for {@link Builtins} on top of the incubating Vector API.
+ * <p>
+ * This is the only class that references {@code jdk.incubator.vector}.
+ * {@link Builtins} calls into it only if the module is in the boot layer,
+ * i.e. the JVM was started with {@code --add-modules jdk.incubator.vector};
+ * otherwise the class is never loaded. Every kernel processes whole vectors
+ * of the platform's preferred species and finishes the tail with a scalar
+ * loop. Reductions combine lanes at the end, so floating-point results are
+ * reassociated the same way as the scalar four-accumulator kernels.
+ * </p>
+ */
+final class VectorKernels {
+
+    private static final VectorSpecies<Integer> INTS = IntVector.SPECIES_PREFERRED;
+    private static final VectorSpecies<Double> DOUBLES = DoubleVector.SPECIES_PREFERRED;
+
+    private VectorKernels() {
+    }
+
+    // === Reductions ===
+
+    static int sum(int[] a) {
+        IntVector acc = IntVector.zero(INTS);
+        int i = 0;
+        for (int bound = INTS.loopBound(a.length); i < bound; i += INTS.length()) {
+            acc = acc.add(IntVector.fromArray(INTS, a, i));
+        }
+        int s = acc.reduceLanes(VectorOperators.ADD);
+        for (; i < a.length; i++) {
+            s += a[i];
+        }
+        return s;
+    }
+
+    static double sum(double[] a) {
+        DoubleVector acc = DoubleVector.zero(DOUBLES);
+        int i = 0;
+        for (int bound = DOUBLES.loopBound(a.length); i < bound; i += DOUBLES.length()) {
+            acc = acc.add(DoubleVector.fromArray(DOUBLES, a, i));
+        }
+        double s = acc.reduceLanes(VectorOperators.ADD);
+        for (; i < a.length; i++) {
+            s += a[i];
+        }
+        return s;
+    }
+
+    static int dot(int[] a, int[] b) {
+        IntVector acc = IntVector.zero(INTS);
+        int i = 0;
+        for (int bound = INTS.loopBound(a.length); i < bound; i += INTS.length()) {
+            acc = acc.add(IntVector.fromArray(INTS, a, i).mul(IntVector.fromArray(INTS, b, i)));
+        }
+        int s = acc.reduceLanes(VectorOperators.ADD);
+        for (; i < a.length; i++) {
+            s += a[i] * b[i];
+        }
+        return s;
+    }
+
+    /**
+     * Uses a separate multiply and add rather than {@code fma}, which falls
+     * back to a slow software path on hardware without FMA units.
+     */
+    static double dot(double[] a, double[] b) {
+        DoubleVector acc = DoubleVector.zero(DOUBLES);
+        int i = 0;
+        for (int bound = DOUBLES.loopBound(a.length); i < bound; i += DOUBLES.length()) {
+            acc = acc.add(DoubleVector.fromArray(DOUBLES, a, i).mul(DoubleVector.fromArray(DOUBLES, b, i)));
+        }
+        double s = acc.reduceLanes(VectorOperators.ADD);
+        for (; i < a.length; i++) {
+            s += a[i] * b[i];
+        }
+        return s;
+    }
+
+    /**
+     * Returns {@code {min, max}} of a non-empty array.
+     */
+    static int[] minmax(int[] a) {
+        IntVector lo = IntVector.broadcast(INTS, a[0]);
+        IntVector hi = lo;
+        int i = 0;
+        for (int bound = INTS.loopBound(a.length); i < bound; i += INTS.length()) {
+            IntVector v = IntVector.fromArray(INTS, a, i);
+            lo = lo.min(v);
+            hi = hi.max(v);
+        }
+        int min = lo.reduceLanes(VectorOperators.MIN);
+        int max = hi.reduceLanes(VectorOperators.MAX);
+        for (; i < a.length; i++) {
+            min = Math.min(min, a[i]);
+            max = Math.max(max, a[i]);
+        }
+        return new int[]{min, max};
+    }
+
+    /**
+     * Returns {@code {min, max}} of a non-empty array, with {@link Math#min} semantics for NaN and signed zeros.
+     */
+    static double[] minmax(double[] a) {
+        DoubleVector lo = DoubleVector.broadcast(DOUBLES, a[0]);
+        DoubleVector hi = lo;
+        int i = 0;
+        for (int bound = DOUBLES.loopBound(a.length); i < bound; i += DOUBLES.length()) {
+            DoubleVector v = DoubleVector.fromArray(DOUBLES, a, i);
+            lo = lo.min(v);
+            hi = hi.max(v);
+        }
+        double min = lo.reduceLanes(VectorOperators.MIN);
+        double max = hi.reduceLanes(VectorOperators.MAX);
+        for (; i < a.length; i++) {
+            min = Math.min(min, a[i]);
+            max = Math.max(max, a[i]);
+        }
+        return new double[]{min, max};
+    }
+
+    // === In-place Maps ===
+
+    static void scale(int[] a, int k) {
+        int i = 0;
+        for (int bound = INTS.loopBound(a.length); i < bound; i += INTS.length()) {
+            IntVector.fromArray(INTS, a, i).mul(k).intoArray(a, i);
+        }
+        for (; i < a.length; i++) {
+            a[i] *= k;
+        }
+    }
+
+    static void scale(double[] a, double k) {
+        int i = 0;
+        for (int bound = DOUBLES.loopBound(a.length); i < bound; i += DOUBLES.length()) {
+            DoubleVector.fromArray(DOUBLES, a, i).mul(k).intoArray(a, i);
+        }
+        for (; i < a.length; i++) {
+            a[i] *= k;
+        }
+    }
+
+    /**
+     * {@code a[i] = a[i] op b[i]} for {@code op} in {@code add}, {@code sub}, {@code mul}.
+     */
+    static void elementwise(String op, int[] a, int[] b) {
+        VectorOperators.Binary binary = binary(op);
+        int i = 0;
+        for (int bound = INTS.loopBound(a.length); i < bound; i += INTS.length()) {
+            IntVector.fromArray(INTS, a, i).lanewise(binary, IntVector.fromArray(INTS, b, i)).intoArray(a, i);
+        }
+        for (; i < a.length; i++) {
+            a[i] = binary == VectorOperators.ADD ? a[i] + b[i]
+                    : binary == VectorOperators.SUB ? a[i] - b[i]
+                    : a[i] * b[i];
+        }
+    }
+
+    static void elementwise(String op, double[] a, double[] b) {
+        VectorOperators.Binary binary = binary(op);
+        int i = 0;
+        for (int bound = DOUBLES.loopBound(a.length); i < bound; i += DOUBLES.length()) {
+            DoubleVector.fromArray(DOUBLES, a, i).lanewise(binary, DoubleVector.fromArray(DOUBLES, b, i)).intoArray(a, i);
+        }
+        for (; i < a.length; i++) {
+            a[i] = binary == VectorOperators.ADD ? a[i] + b[i]
+                    : binary == VectorOperators.SUB ? a[i] - b[i]
+                    : a[i] * b[i];
+        }
+    }
+
+    private static VectorOperators.Binary binary(String op) {
+        return switch (op) {
+            case "add" -> VectorOperators.ADD;
+            case "sub" -> VectorOperators.SUB;
+            default -> VectorOperators.MUL;
+        };
+    }
+}
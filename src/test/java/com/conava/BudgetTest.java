@@ -0,0 +1,93 @@
+package com.conava;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.time.Duration;
+
+import javax.script.ScriptContext;
+import javax.script.ScriptException;
+
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.CommonTokenStream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+/**
+ * Fuel and timeout limits on both engines and through the JSR-223 engine.
+ */
+class BudgetTest {
+
+    private static final String SPIN = "var i = 0\nwhile true do:\n    i = i + 1\nend\n";
+
+    /**
+     * Each iteration copies an ever longer string, so iterations (and polls) get slower as the loop runs.
+     */
+    private static final String SLOW = "var s = \"\"\nwhile true do:\n    s = s + \"0123456789abcdef\"\nend\n";
+
+    @ParameterizedTest
+    @ValueSource(strings = {"tree", "vm"})
+    void fuelRunsOutAtTheSpinningLoop(String engine) {
+        BudgetExceededException e = assertThrows(BudgetExceededException.class,
+                () -> run(engine, SPIN, new Budget(1000, null)));
+        assertEquals(BudgetExceededException.Reason.FUEL, e.reason());
+        assertEquals(2, e.line());
+        assertEquals(1001, e.fuelUsed());
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"tree", "vm"})
+    void timeoutStopsASlowLoopNearTheDeadline(String engine) {
+        long timeoutMillis = 200;
+        BudgetExceededException e = assertThrows(BudgetExceededException.class,
+                () -> run(engine, SLOW, new Budget(0, Duration.ofMillis(timeoutMillis))));
+        assertEquals(BudgetExceededException.Reason.TIMEOUT, e.reason());
+        assertEquals(2, e.line());
+        long elapsedMillis = e.elapsedNanos() / 1_000_000;
+        assertTrue(elapsedMillis >= timeoutMillis, "stopped early: " + elapsedMillis + " ms");
+        assertTrue(elapsedMillis < timeoutMillis + 250, "overshot: " + elapsedMillis + " ms");
+    }
+
+    @Test
+    void everyInvokeFunctionGetsAFullBudget() throws Exception {
+        MinJScriptEngine engine = engine();
+        engine.eval("func spin(n):\n    var i = 0\n    while i < n do:\n        i = i + 1\n    end\n    return i\nend\n");
+        engine.getContext().setAttribute(MinJScriptEngine.FUEL, 1000, ScriptContext.ENGINE_SCOPE);
+
+        assertEquals(800, engine.invokeFunction("spin", 800));
+        assertEquals(800, engine.invokeFunction("spin", 800));
+
+        ScriptException e = assertThrows(ScriptException.class, () -> engine.invokeFunction("spin", 2000));
+        BudgetExceededException cause = assertInstanceOf(BudgetExceededException.class, e.getCause());
+        assertEquals(BudgetExceededException.Reason.FUEL, cause.reason());
+        assertEquals(3, cause.line());
+    }
+
+    // === Helpers ===
+
+    private static void run(String engine, String source, Budget budget) {
+        MinJParser.ProgramContext program = new MinJParser(
+                new CommonTokenStream(new MinJLexer(CharStreams.fromString(source)))).program();
+        PrintWriter out = new PrintWriter(new StringWriter());
+        if (engine.equals("vm")) {
+            BytecodeVM vm = new BytecodeVM(new BytecodeCompiler().compile(program));
+            vm.setOut(out);
+            vm.setBudget(budget);
+            vm.run();
+        } else {
+            EvalVisitor visitor = new EvalVisitor();
+            visitor.setOut(out);
+            visitor.setBudget(budget);
+            visitor.visit(program);
+        }
+    }
+
+    private static MinJScriptEngine engine() {
+        return (MinJScriptEngine) new MinJScriptEngineFactory().getScriptEngine();
+    }
+}
@@ -0,0 +1,157 @@
+package com.conava;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.DynamicTest.dynamicTest;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.CommonTokenStream;
+import org.junit.jupiter.api.DynamicTest;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestFactory;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+/**
+ * Runs the same programs on {@link EvalVisitor} and {@link BytecodeVM} and
+ * requires identical output, including the message of the error that ends a
+ * failing program.
+ */
+class EngineDifferentialTest {
+
+    private static final Path EXAMPLES = Path.of("examples");
+
+    /**
+     * What {@code input()} reads during a run.
+     */
+    private static final String STDIN = "MinJ\n";
+
+    @TestFactory
+    Stream<DynamicTest> examplesBehaveTheSameOnBothEngines() throws IOException {
+        List<Path> examples;
+        try (Stream<Path> files = Files.list(EXAMPLES)) {
+            examples = files
+                    .filter(p -> p.getFileName().toString().endsWith(".mj"))
+                    .sorted()
+                    .toList();
+        }
+        return examples.stream().map(p -> dynamicTest(p.getFileName().toString(),
+                () -> assertSameOutcome(Files.readString(p))));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            // declarations inside branches and loops
+            "var c = false\nif c then:\n    var y = 1\nend\nprint y\n",
+            "var c = true\nif c then:\n    var y = 1\nend\nprint y\n",
+            "var c = false\nif c then:\n    var y = 1\nend\ny = 2\n",
+            "var i = 0\nwhile i < 3 do:\n    if i > 0 then:\n        print z\n    end\n    var z = i\n    i = i + 1\nend\n",
+            "foreach x in [] do:\n    print x\nend\nprint x\n",
+            "for i = 1 to 3 do:\n    var last = i\nend\nprint last\nprint i\n",
+            // arithmetic, promotion and comparisons
+            "print 7 / 2\nprint 7 % 3\nprint 1 + 2.5\nprint 1 == 1.0\nprint \"a\" + 1 + 2\n",
+            "int n = 1\nn = \"x\"\n",
+            "val k = 1\nk = 2\n",
+            // functions, multiple results and recursion
+            "func fib(n):\n    if n < 2 then:\n        return n\n    end\n    return fib(n - 1) + fib(n - 2)\nend\nprint fib(15)\n",
+            "func pair():\n    return 1, 2\nend\nvar a, b = pair()\nprint a + b\n",
+            "print nope(1)\n",
+            // functions exist once their declaration has run, and shadow builtins only from then on
+            "print f()\nfunc f():\n    return 1\nend\n",
+            "func f():\n    return 1\nend\nprint f()\nfunc f():\n    return 2\nend\nprint f()\n",
+            "print sum([1, 2])\nfunc sum(xs):\n    return 99\nend\nprint sum([1, 2])\n",
+            "print sum([1, 2, 3]) + dot([1, 2], [3, 4])\nvar lo, hi = minmax([3, 1, 2])\nprint lo + hi\n",
+            // builtin results are primitive-backed lists that behave like any other list
+            "var xs = scale([1, 2, 3], 2)\nprint xs\nprint xs == [2, 4, 6]\nprint sum(mul(xs, xs)) + dot(xs, sub(xs, [1, 1, 1]))\n"
+                    + "var ds = add(scale(xs, 0.5), [0.5, 0, 0])\nprint ds\nforeach d in ds do:\n    print d * 2\nend\n"
+                    + "var lo, hi = minmax(ds)\nprint lo + hi\nprint sum(scale([], 1.5))\n",
+            // classes: fields, this, class body statements and binding checks
+            "class P:\n    val k = 1\n    method bump():\n        k = 2\n    end\nend\nnew P().bump()\n",
+            "class P:\n    int n\n    method set(x):\n        n = x\n    end\n    method get():\n        return n\n    end\nend\n"
+                    + "var p = new P()\np.set(5)\nprint p.get()\np.set(\"a\")\n",
+            "var x = new Q()\n",
+            "class A:\n    print \"declaring A\"\nend\nnew A().missing()\n",
+            "class Node:\n    var value = 0\n    var next = \"\"\n    method init(v, n):\n        value = v\n        next = n\n"
+                    + "        return this\n    end\n    method sum():\n        if next == \"\" then:\n            return value\n"
+                    + "        end\n        return value + next.sum()\n    end\n    method twice():\n        return this.sum() * 2\n"
+                    + "    end\nend\nvar list = new Node().init(1, new Node().init(2, new Node().init(3, \"\")))\n"
+                    + "print list.sum()\nprint list.twice()\nvar a = new Node()\nvar b = a\nprint a == b\nprint a == new Node()\n",
+            "var base = 10\nclass C:\n    var start = base * 2\n    method get(base):\n        return start + base\n    end\n"
+                    + "    method shadow():\n        var start = 1\n        return start\n    end\nend\nbase = 100\n"
+                    + "var c = new C()\nprint c.get(1)\nprint c.shadow()\n",
+            "class C:\n    var n = 0\n    method inc():\n        n = n + 1\n        return n\n    end\nend\nvar a = new C()\n"
+                    + "print a.inc()\nclass C:\n    var n = 10\n    method inc():\n        n = n + 100\n        return n\n    end\nend\n"
+                    + "print new C().inc()\nprint a.inc()\n",
+            "class C:\n    method m():\n        this = 1\n    end\nend\nnew C().m()\n"
+    })
+    void snippetsBehaveTheSameOnBothEngines(String source) {
+        assertSameOutcome(source);
+    }
+
+    @Test
+    void readingAVariableDeclaredInASkippedBranchIsUndefined() {
+        assertEquals("error: Undefined: y", runVm("var c = false\nif c then:\n    var y = 1\nend\nprint y\n"));
+    }
+
+    @Test
+    void chainedBuiltinsPrintLikeOrdinaryLists() {
+        assertEquals("[2, 4, 6]\n[1.5, 2.5, 3.5]\ntrue\n56\n",
+                runTree("var xs = scale([1, 2, 3], 2)\nprint xs\nprint add(scale(xs, 0.5), [0.5, 0.5, 0.5])\n"
+                        + "print xs == [2, 4, 6]\nprint sum(mul(xs, xs))\n"));
+    }
+
+    // === Helpers ===
+
+    private static void assertSameOutcome(String source) {
+        assertEquals(runTree(source), runVm(source));
+    }
+
+    private static String runTree(String source) {
+        StringWriter buffer = new StringWriter();
+        return outcome(buffer, () -> {
+            EvalVisitor visitor = new EvalVisitor();
+            visitor.setOut(new PrintWriter(buffer, true));
+            visitor.visit(parse(source));
+        });
+    }
+
+    private static String runVm(String source) {
+        StringWriter buffer = new StringWriter();
+        return outcome(buffer, () -> {
+            BytecodeVM vm = new BytecodeVM(new BytecodeCompiler().compile(parse(source)));
+            vm.setOut(new PrintWriter(buffer, true));
+            vm.run();
+        });
+    }
+
+    /**
+     * Everything the program printed, followed by the message of the error that stopped it, if any.
+     */
+    private static String outcome(StringWriter buffer, Runnable program) {
+        InputStream stdin = System.in;
+        System.setIn(new ByteArrayInputStream(STDIN.getBytes(StandardCharsets.UTF_8)));
+        try {
+            program.run();
+            return buffer.toString();
+        } catch (RuntimeException e) {
+            return buffer + "error: " + e.getMessage();
+        } finally {
+            System.setIn(stdin);
+        }
+    }
+
+    private static MinJParser.ProgramContext parse(String source) {
+        MinJParser parser = new MinJParser(new CommonTokenStream(new MinJLexer(CharStreams.fromString(source))));
+        return parser.program();
+    }
+}
@@ -0,0 +1,97 @@
+package com.conava;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import javax.script.Bindings;
+import javax.script.Compilable;
+import javax.script.CompiledScript;
+import javax.script.Invocable;
+import javax.script.ScriptEngine;
+import javax.script.ScriptEngineManager;
+import javax.script.ScriptException;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * The JSR-223 contract of {@link MinJScriptEngine} as documented in the README.
+ */
+class MinJScriptEngineTest {
+
+    @Test
+    void readmeDiscountExample() throws Exception {
+        ScriptEngine engine = new ScriptEngineManager().getEngineByName("minj");
+        CompiledScript rule = ((Compilable) engine).compile("""
+                func discount(total):
+                    return total / 10
+                end
+                amount > 100
+                """);
+
+        Bindings request = engine.createBindings();
+        request.put("amount", 250);
+        assertEquals(true, rule.eval(request));
+        assertEquals(25, ((Invocable) engine).invokeFunction("discount", 250));
+
+        request.put("amount", 50);
+        assertEquals(false, rule.eval(request));
+    }
+
+    @Test
+    void bindingsAreGlobalsAndTopLevelVariablesAreWrittenBack() throws ScriptException {
+        ScriptEngine engine = engine();
+        engine.put("rate", 3);
+        engine.eval("func charge(n):\n    return n * rate\nend\nvar total = charge(5)\nrate = 4\n");
+
+        assertEquals(15, engine.get("total"));
+        assertEquals(4, engine.get("rate"));
+    }
+
+    @Test
+    void resultIsTheLastTopLevelExpressionStatement() throws ScriptException {
+        ScriptEngine engine = engine();
+        assertEquals(3, engine.eval("var a = 1\na + 2\nvar b = a * 10\n"));
+        assertEquals("ab", engine.eval("\"a\" + \"b\"\n"));
+        assertNull(engine.eval("var c = 1\n"));
+    }
+
+    @Test
+    void invocableStateIsPerThread() throws Exception {
+        MinJScriptEngine engine = engine();
+        engine.eval("func answer():\n    return 42\nend\n");
+        assertEquals(42, engine.invokeFunction("answer"));
+
+        AtomicReference<Throwable> thrown = new AtomicReference<>();
+        Thread other = new Thread(() -> {
+            try {
+                engine.invokeFunction("answer");
+            } catch (Throwable e) {
+                thrown.set(e);
+            }
+        });
+        other.start();
+        other.join();
+        assertInstanceOf(NoSuchMethodException.class, thrown.get());
+    }
+
+    @Test
+    void syntaxErrorsCarryLineAndColumn() {
+        ScriptException e = assertThrows(ScriptException.class, () -> engine().eval("var a = 1\nvar = 2\n"));
+        assertEquals(2, e.getLineNumber());
+        assertEquals(4, e.getColumnNumber());
+    }
+
+    @Test
+    void runtimeErrorsBecomeScriptExceptions() {
+        ScriptException e = assertThrows(ScriptException.class, () -> engine().eval("print nope(1)\n"));
+        assertInstanceOf(RuntimeException.class, e.getCause());
+    }
+
+    private static MinJScriptEngine engine() {
+        return (MinJScriptEngine) new MinJScriptEngineFactory().getScriptEngine();
+    }
+}